@@ -0,0 +1,178 @@
+package com.scalebackend.bench;
+
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.TableColumnDTO;
+import com.scalebackend.dto.TableSchemaDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Deterministic templates, items and sheet values shared by the microbenchmarks and the load harness.
+// Field ids are positional (1..n) so the same values fit the fields returned by the server, see renumber().
+public final class BenchData {
+
+    public static final String INPUT_CODE = "BENCH_IN";
+    public static final String OUTPUT_CODE = "BENCH_OUT";
+
+    private BenchData() {
+    }
+
+    public static List<FieldDefinitionDTO> inputFields() {
+        List<FieldDefinitionDTO> fields = new ArrayList<>();
+        fields.add(field(1, "load", "NUMBER", true, "REQUIRED", Arrays.asList("kN", "t")));
+        FieldDefinitionDTO range = field(2, "range", "NUMBER", false, "OPTIONAL", Arrays.asList("mm"));
+        range.isMulti = true;
+        range.multiKeys = Arrays.asList("from", "to");
+        fields.add(range);
+        fields.add(field(3, "operator", "TEXT", true, "NONE", null));
+        FieldDefinitionDTO grade = field(4, "grade", "DROPDOWN", false, "NONE", null);
+        grade.dropdownOptions = Arrays.asList("A", "B", "C", "D");
+        fields.add(grade);
+        fields.add(field(5, "inspected", "DATE", false, "NONE", null));
+        fields.add(field(6, "passed", "BOOLEAN", false, "NONE", null));
+        FieldDefinitionDTO readings = field(7, "readings", "TABLE", false, "NONE", null);
+        readings.tableSchema = tableSchema();
+        fields.add(readings);
+        for (int i = 8; i <= 20; i++) {
+            fields.add(field(i, "n" + i, "NUMBER", false, "OPTIONAL", Arrays.asList("mm", "cm")));
+        }
+        return fields;
+    }
+
+    // inputFields() padded to count fields with a repeating mix of NUMBER, TEXT, DROPDOWN and TABLE fields,
+    // for template saves of a realistic size.
+    public static List<FieldDefinitionDTO> templateFields(int count) {
+        List<FieldDefinitionDTO> fields = inputFields();
+        for (int i = fields.size() + 1; i <= count; i++) {
+            switch (i % 4) {
+                case 0:
+                    FieldDefinitionDTO table = field(i, "t" + i, "TABLE", false, "NONE", null);
+                    table.tableSchema = tableSchema();
+                    fields.add(table);
+                    break;
+                case 1:
+                    FieldDefinitionDTO dropdown = field(i, "d" + i, "DROPDOWN", false, "NONE", null);
+                    dropdown.dropdownOptions = Arrays.asList("A", "B", "C", "D");
+                    fields.add(dropdown);
+                    break;
+                case 2:
+                    fields.add(field(i, "s" + i, "TEXT", false, "NONE", null));
+                    break;
+                default:
+                    fields.add(field(i, "n" + i, "NUMBER", false, "OPTIONAL", Arrays.asList("mm", "cm")));
+            }
+        }
+        return fields.size() > count ? new ArrayList<>(fields.subList(0, count)) : fields;
+    }
+
+    public static List<FieldDefinitionDTO> outputFields() {
+        List<FieldDefinitionDTO> fields = new ArrayList<>();
+        fields.add(formula(1, "load", null));
+        fields.add(formula(2, "avgReading", "round(avg(readings.v), 2)"));
+        fields.add(formula(3, "spread", "range.to - range.from"));
+        fields.add(formula(4, "peakRatio", "if(load > 0, max(readings.v) / load * 100, 0)"));
+        fields.add(formula(5, "deviation", "stdev(readings.v)"));
+        fields.add(formula(6, "total", "n8 + n9 + n10 + n11 + n12"));
+        return fields;
+    }
+
+    public static TableSchemaDTO tableSchema() {
+        TableSchemaDTO schema = new TableSchemaDTO();
+        schema.rowMode = "DYNAMIC";
+        schema.columns.add(column("point", "TEXT", "NONE", null));
+        schema.columns.add(column("v", "NUMBER", "OPTIONAL", Arrays.asList("mm", "cm")));
+        schema.columns.add(column("ok", "BOOLEAN", "NONE", null));
+        return schema;
+    }
+
+    // Values for inputFields(), keyed by field id; tableRows controls the size of the TABLE value.
+    public static Map<String, Object> inputValues(Random random, int tableRows) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("1", value("NUMBER", round(random.nextDouble() * 500), "kN"));
+        Map<String, Object> range = new LinkedHashMap<>();
+        range.put("from", round(random.nextDouble() * 10));
+        range.put("to", round(10 + random.nextDouble() * 10));
+        values.put("2", value("MULTI", range, "mm"));
+        values.put("3", value("TEXT", "operator-" + random.nextInt(50), null));
+        values.put("4", value("DROPDOWN", String.valueOf((char) ('A' + random.nextInt(4))), null));
+        values.put("5", value("DATE", String.format("2026-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28)), null));
+        values.put("6", value("BOOLEAN", random.nextBoolean(), null));
+        List<Map<String, Object>> rows = new ArrayList<>(tableRows);
+        for (int r = 0; r < tableRows; r++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("point", "P" + r);
+            row.put("v", round(random.nextDouble() * 100));
+            row.put("ok", random.nextInt(10) > 0);
+            rows.add(row);
+        }
+        Map<String, Object> table = new HashMap<>();
+        table.put("rows", rows);
+        values.put("7", value("TABLE", table, null));
+        for (int i = 8; i <= 20; i++) {
+            values.put(String.valueOf(i), value("NUMBER", round(random.nextDouble() * 1000), "mm"));
+        }
+        return values;
+    }
+
+    // Rewrites positional field ids (1..n) to the ids the server assigned to the same fields, in order.
+    public static Map<String, Object> renumber(Map<String, Object> values, List<Integer> fieldIds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> e : values.entrySet()) {
+            result.put(String.valueOf(fieldIds.get(Integer.parseInt(e.getKey()) - 1)), e.getValue());
+        }
+        return result;
+    }
+
+    public static Map<String, Object> value(String type, Object value, String unit) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("type", type);
+        entry.put("value", value);
+        if (unit != null) {
+            entry.put("unit", unit);
+        }
+        return entry;
+    }
+
+    private static FieldDefinitionDTO field(int id, String key, String type, boolean required, String unitMode, List<String> units) {
+        FieldDefinitionDTO f = new FieldDefinitionDTO();
+        f.id = id;
+        f.key = key;
+        f.label = key;
+        f.type = type;
+        f.required = required;
+        f.orderNo = id * 10;
+        f.isMulti = false;
+        f.unitMode = unitMode;
+        if (units != null) {
+            f.unitOptions = new ArrayList<>(units);
+        }
+        return f;
+    }
+
+    private static FieldDefinitionDTO formula(int id, String key, String formula) {
+        FieldDefinitionDTO f = field(id, key, "NUMBER", false, "NONE", null);
+        f.formula = formula;
+        return f;
+    }
+
+    private static TableColumnDTO column(String key, String type, String unitMode, List<String> units) {
+        TableColumnDTO c = new TableColumnDTO();
+        c.key = key;
+        c.label = key;
+        c.type = type;
+        c.unitMode = unitMode;
+        if (units != null) {
+            c.unitOptions = new ArrayList<>(units);
+        }
+        return c;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.scalebackend.bench;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A DataSource whose every query returns the same in-memory rows, so DAO row mapping and the work done
+// on the mapped rows can be measured through the real JdbcTemplate code path without a database.
+// int[]/Integer[] cells are returned from getArray() the way PgJDBC returns int4[] columns. Updates and
+// batches are accepted and discarded.
+public final class CannedDataSource {
+
+    private CannedDataSource() {
+    }
+
+    public static DataSource of(String[] columns, List<Object[]> rows) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            index.put(columns[i], i);
+        }
+        DatabaseMetaData metaData = proxy(DatabaseMetaData.class, (method, args) -> "supportsBatchUpdates".equals(method.getName()) ? true : null);
+        Connection[] connection = new Connection[1];
+        connection[0] = proxy(Connection.class, (method, args) -> {
+            String name = method.getName();
+            if ("createStatement".equals(name) || "prepareStatement".equals(name)) {
+                Class<? extends Statement> type = "createStatement".equals(name) ? Statement.class : PreparedStatement.class;
+                return statement(type, connection[0], index, rows);
+            }
+            return "getMetaData".equals(name) ? metaData : null;
+        });
+        return proxy(DataSource.class, (method, args) -> "getConnection".equals(method.getName()) ? connection[0] : null);
+    }
+
+    // Queries return the canned rows; updates report one row each, batches one row per added parameter set.
+    private static Statement statement(Class<? extends Statement> type, Connection connection, Map<String, Integer> index, List<Object[]> rows) {
+        int[] batched = {0};
+        return proxy(type, (method, args) -> {
+            switch (method.getName()) {
+                case "getConnection":
+                    return connection;
+                case "executeUpdate":
+                    return 1;
+                case "addBatch":
+                    batched[0]++;
+                    return null;
+                case "executeBatch":
+                    int[] counts = new int[batched[0]];
+                    Arrays.fill(counts, 1);
+                    batched[0] = 0;
+                    return counts;
+                default:
+                    return method.getName().startsWith("execute") ? resultSet(index, rows) : null;
+            }
+        });
+    }
+
+    private static ResultSet resultSet(Map<String, Integer> index, List<Object[]> rows) {
+        int[] position = {-1};
+        return proxy(ResultSet.class, (method, args) -> {
+            String name = method.getName();
+            if ("next".equals(name)) {
+                return ++position[0] < rows.size();
+            }
+            if (name.startsWith("get") && args != null && args.length == 1) {
+                int column = args[0] instanceof String ? index.get(args[0]) : (Integer) args[0] - 1;
+                Object cell = rows.get(position[0])[column];
+                if ("getArray".equals(name)) {
+                    return cell == null ? null : array(cell);
+                }
+                if ("getString".equals(name)) {
+                    return cell == null ? null : cell.toString();
+                }
+                return cell;
+            }
+            return null;
+        });
+    }
+
+    private static Array array(Object values) {
+        return proxy(Array.class, (method, args) -> "getArray".equals(method.getName()) ? values : null);
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    // Unhandled methods return null, or the zero value of a primitive return type.
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+            if ("equals".equals(method.getName())) {
+                return p == args[0];
+            }
+            if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(p);
+            }
+            Object result = handler.invoke(method, args);
+            if (result == null && method.getReturnType().isPrimitive()) {
+                return zero(method.getReturnType());
+            }
+            return result;
+        });
+    }
+
+    private static Object zero(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == void.class) {
+            return null;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == char.class) {
+            return (char) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,47 @@
+package com.scalebackend.bench;
+
+import com.scalebackend.dao.impl.ItemDaoJdbc;
+import com.scalebackend.dao.impl.PartTemplateMappingDaoJdbc;
+import com.scalebackend.dao.impl.TemplateDaoJdbc;
+import com.scalebackend.metrics.LatencyMetrics;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+
+// DAOs wired by hand the way Spring would wire them, on top of a CannedDataSource.
+final class DaoFixtures {
+
+    private DaoFixtures() {
+    }
+
+    static ItemDaoJdbc itemDao(DataSource dataSource) {
+        ItemDaoJdbc dao = new ItemDaoJdbc();
+        inject(dao, "jdbcTemplate", new JdbcTemplate(dataSource));
+        return dao;
+    }
+
+    static PartTemplateMappingDaoJdbc partTemplateMappingDao(DataSource dataSource) {
+        PartTemplateMappingDaoJdbc dao = new PartTemplateMappingDaoJdbc();
+        inject(dao, "jdbcTemplate", new JdbcTemplate(dataSource));
+        inject(dao, "dataSource", dataSource);
+        inject(dao, "streamFetchSize", 500);
+        return dao;
+    }
+
+    static TemplateDaoJdbc templateDao(DataSource dataSource) {
+        TemplateDaoJdbc dao = new TemplateDaoJdbc(new LatencyMetrics());
+        inject(dao, "jdbcTemplate", new JdbcTemplate(dataSource));
+        return dao;
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException(target.getClass().getSimpleName() + " has no field " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
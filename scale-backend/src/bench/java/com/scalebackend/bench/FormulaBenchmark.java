@@ -0,0 +1,63 @@
+package com.scalebackend.bench;
+
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.formula.FormulaContext;
+import com.scalebackend.formula.FormulaProgram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Computing the formula fields of one OUTPUT sheet from its parent input values (FormulaEngine.apply without
+// the cache lookups), and compiling the formulas of a template version.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FormulaBenchmark {
+
+    @Param({"5", "50"})
+    public int tableRows;
+
+    private List<FieldDefinitionDTO> outputFields;
+    private FormulaProgram program;
+    private FormulaProgram.Binding binding;
+    private final FormulaContext ctx = new FormulaContext();
+    private Map<String, Object> inputValues;
+    private final Map<String, Object> outputValues = new HashMap<>();
+
+    @Setup
+    public void setUp() {
+        List<FieldDefinitionDTO> inputFields = BenchData.inputFields();
+        outputFields = BenchData.outputFields();
+        program = FormulaProgram.compile(outputFields);
+        binding = program.bind(1, id -> inputFields);
+        inputValues = BenchData.inputValues(new Random(42), tableRows);
+    }
+
+    @Benchmark
+    public int apply() {
+        outputValues.clear();
+        return program.apply(ctx, binding, inputValues, outputValues);
+    }
+
+    @Benchmark
+    public FormulaProgram compile() {
+        return FormulaProgram.compile(outputFields);
+    }
+}
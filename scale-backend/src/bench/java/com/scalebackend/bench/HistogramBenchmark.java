@@ -0,0 +1,90 @@
+package com.scalebackend.bench;
+
+import com.scalebackend.metrics.LatencyHistogram;
+import com.scalebackend.stats.LogHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Recording into the request/DAO LatencyHistogram (alone and from 4 threads sharing one histogram, as
+// concurrent requests to one handler do) and the LogHistogram sketch behind the NUMBER field rollups.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HistogramBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final long[] nanos = new long[SAMPLES];
+    private final double[] values = new double[SAMPLES];
+    private LogHistogram day;
+    private LogHistogram otherDay;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance() {
+            next = (next + 1) & (SAMPLES - 1);
+            return next;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        day = new LogHistogram();
+        otherDay = new LogHistogram();
+        for (int i = 0; i < SAMPLES; i++) {
+            // log-normal around ~1 ms, the shape of real request latencies
+            nanos[i] = (long) Math.exp(13.8 + random.nextGaussian());
+            values[i] = 100 + random.nextGaussian() * 15;
+            day.add(values[i]);
+            otherDay.add(values[i] * 1.1);
+        }
+    }
+
+    @Benchmark
+    public void latencyRecord(Cursor cursor) {
+        latency.record(nanos[cursor.advance()]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void latencyRecordContended(Cursor cursor) {
+        latency.record(nanos[cursor.advance()]);
+    }
+
+    @Benchmark
+    public int logBucketOf(Cursor cursor) {
+        return LogHistogram.bucketOf(values[cursor.advance()]);
+    }
+
+    @Benchmark
+    public LogHistogram logMergeDays() {
+        LogHistogram range = new LogHistogram();
+        range.merge(day);
+        range.merge(otherDay);
+        return range;
+    }
+
+    @Benchmark
+    public Double logQuantile99() {
+        return day.quantile(0.99);
+    }
+}
@@ -0,0 +1,61 @@
+package com.scalebackend.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.dao.impl.ItemDaoJdbc;
+import com.scalebackend.dto.ItemTreeNodeDTO;
+import com.scalebackend.dto.response.ServiceMessageResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ItemDaoJdbc.findItemTree (row mapping plus part/serial/bridge grouping) and the response body
+// ItemTreeCache encodes from it. Items are spread over items/100 parts with 10 serials each.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ItemTreeBenchmark {
+
+    @Param({"1000", "20000"})
+    public int items;
+
+    private ItemDaoJdbc itemDao;
+    private List<ItemTreeNodeDTO> tree;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Setup
+    public void setUp() {
+        List<Object[]> rows = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            int part = i / 100;
+            int serial = (i / 10) % 10;
+            rows.add(new Object[]{i + 1, String.format("P%05d", part), String.format("SN%05d-%d", part, serial), "Bridge " + i});
+        }
+        itemDao = DaoFixtures.itemDao(CannedDataSource.of(new String[]{"id", "part_id", "part_sn", "bridge_name"}, rows));
+        tree = itemDao.findItemTree();
+    }
+
+    @Benchmark
+    public List<ItemTreeNodeDTO> findItemTree() {
+        return itemDao.findItemTree();
+    }
+
+    @Benchmark
+    public byte[] encodeTreeResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(ServiceMessageResponse.success("item tree fetched successfully.", tree));
+    }
+}
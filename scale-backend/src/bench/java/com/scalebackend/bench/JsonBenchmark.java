@@ -0,0 +1,92 @@
+package com.scalebackend.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.scalebackend.dto.SheetDTO;
+import com.scalebackend.dto.SheetDetailDTO;
+import com.scalebackend.dto.TableSchemaDTO;
+import com.scalebackend.dto.response.ServiceMessageResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// The Jackson work of the DAOs and controllers, done the same way they do it: values_json through a
+// Map TypeReference (SheetDaoJdbc), table_schema_json through an ObjectReader (TemplateDaoJdbc), and the
+// ServiceMessageResponse envelope around a sheet (ScaleWS / SheetCache).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonBenchmark {
+
+    private static final TypeReference<Map<String, Object>> VALUES_TYPE = new TypeReference<Map<String, Object>>(){};
+
+    @Param({"0", "50"})
+    public int tableRows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectReader tableSchemaReader;
+    private Map<String, Object> values;
+    private String valuesJson;
+    private TableSchemaDTO tableSchema;
+    private String tableSchemaJson;
+    private SheetDetailDTO sheet;
+
+    @Setup
+    public void setUp() throws Exception {
+        tableSchemaReader = objectMapper.readerFor(TableSchemaDTO.class);
+        values = BenchData.inputValues(new Random(42), tableRows);
+        valuesJson = objectMapper.writeValueAsString(values);
+        tableSchema = BenchData.tableSchema();
+        tableSchemaJson = objectMapper.writeValueAsString(tableSchema);
+
+        sheet = new SheetDetailDTO();
+        sheet.sheet = new SheetDTO();
+        sheet.sheet.id = 1;
+        sheet.sheet.itemId = 1;
+        sheet.sheet.templateId = 1;
+        sheet.sheet.kind = "INPUT";
+        sheet.sheet.createdAt = "2026-01-01 00:00:00+00";
+        sheet.values = values;
+    }
+
+    @Benchmark
+    public Map<String, Object> readValues() throws Exception {
+        return objectMapper.readValue(valuesJson, VALUES_TYPE);
+    }
+
+    @Benchmark
+    public String writeValues() throws Exception {
+        return objectMapper.writeValueAsString(values);
+    }
+
+    @Benchmark
+    public TableSchemaDTO readTableSchema() throws Exception {
+        return tableSchemaReader.readValue(tableSchemaJson);
+    }
+
+    @Benchmark
+    public String writeTableSchema() throws Exception {
+        return objectMapper.writeValueAsString(tableSchema);
+    }
+
+    @Benchmark
+    public byte[] encodeSheetResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(ServiceMessageResponse.success("sheet fetched successfully.", sheet));
+    }
+}
@@ -0,0 +1,459 @@
+package com.scalebackend.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.PartTemplateMappingDTO;
+import com.scalebackend.dto.request.CreateSheetRequestDTO;
+import com.scalebackend.dto.request.CreateTemplateVersionRequestDTO;
+import com.scalebackend.dto.request.SaveFieldsVersionRequestDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+// End-to-end load against a running scale-backend and the PostgreSQL behind it.
+//
+// Seeds BENCH-* items over JDBC, the BENCH_IN/BENCH_OUT template versions, part mappings and
+// bench.items * bench.sheetsPerItem input sheets through the API (POST /sheets/batch), then runs a
+// closed loop of bench.threads clients over a fixed mix of ScaleWS reads plus single-sheet writes, and
+// prints throughput and p50/p90/p99/max latency per endpoint. Settings are -Dbench.* system properties,
+// db.* defaults come from application.properties.
+public class LoadHarness {
+
+    private static final String PART_PREFIX = "BENCH-P";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String baseUrl;
+    private final String dbUrl;
+    private final String dbUser;
+    private final String dbPassword;
+    private final int items;
+    private final int sheetsPerItem;
+    private final int tableRows;
+    private final int threads;
+    private final int warmupSec;
+    private final int durationSec;
+    private final int writeWeight;
+    private final boolean seed;
+
+    private List<Integer> itemIds;
+    private List<String> partIds;
+    private List<Integer> sheetIds;
+    private int inputTemplateId;
+    private List<Integer> inputFieldIds;
+
+    private LoadHarness(Properties defaults) {
+        baseUrl = setting("bench.baseUrl", "http://localhost:8080/scale-backend").replaceAll("/$", "") + "/scale";
+        dbUrl = setting("bench.db.url", defaults.getProperty("db.url"));
+        dbUser = setting("bench.db.username", defaults.getProperty("db.username"));
+        dbPassword = setting("bench.db.password", defaults.getProperty("db.password"));
+        items = Integer.parseInt(setting("bench.items", "1000"));
+        sheetsPerItem = Integer.parseInt(setting("bench.sheetsPerItem", "5"));
+        tableRows = Integer.parseInt(setting("bench.tableRows", "10"));
+        threads = Integer.parseInt(setting("bench.threads", "16"));
+        warmupSec = Integer.parseInt(setting("bench.warmupSec", "10"));
+        durationSec = Integer.parseInt(setting("bench.durationSec", "30"));
+        writeWeight = Integer.parseInt(setting("bench.writeWeight", "10"));
+        seed = Boolean.parseBoolean(setting("bench.seed", "true"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties defaults = new Properties();
+        try (InputStream in = LoadHarness.class.getResourceAsStream("/application.properties")) {
+            if (in != null) {
+                defaults.load(in);
+            }
+        }
+        LoadHarness harness = new LoadHarness(defaults);
+        if (harness.seed) {
+            harness.seed();
+        }
+        harness.resolveDataset();
+        harness.run();
+    }
+
+    private static String setting(String name, String fallback) {
+        return System.getProperty(name, fallback);
+    }
+
+    // ---- seeding ----
+
+    private void seed() throws Exception {
+        long start = System.nanoTime();
+        try (Connection conn = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+             PreparedStatement ps = conn.prepareStatement("INSERT INTO \"1scale\".item_master(part_id, part_sn, bridge_name) VALUES (?, ?, ?) " +
+                     "ON CONFLICT (part_id, part_sn, bridge_name) DO NOTHING")) {
+            conn.setAutoCommit(false);
+            for (int i = 0; i < items; i++) {
+                ps.setString(1, partId(i));
+                ps.setString(2, String.format("%sS%03d", partId(i), (i / 10) % 10));
+                ps.setString(3, "Bridge " + i);
+                ps.addBatch();
+                if (i % 1000 == 999) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+            conn.commit();
+        }
+        System.out.printf(Locale.ROOT, "seeded %d items in %.1f s%n", items, seconds(System.nanoTime() - start));
+
+        start = System.nanoTime();
+        int inputId = createTemplate(BenchData.INPUT_CODE, "INPUT", BenchData.inputFields());
+        int outputId = createTemplate(BenchData.OUTPUT_CODE, "OUTPUT", BenchData.outputFields());
+        for (int part = 0; part * 100 < items; part++) {
+            PartTemplateMappingDTO mapping = new PartTemplateMappingDTO();
+            mapping.partId = partId(part * 100);
+            mapping.inputTemplateIds = Collections.singletonList(inputId);
+            mapping.outputTemplateIds = Collections.singletonList(outputId);
+            call("POST", "/part-template-mappings", mapping);
+        }
+        System.out.printf(Locale.ROOT, "seeded templates %d/%d and part mappings in %.1f s%n", inputId, outputId, seconds(System.nanoTime() - start));
+    }
+
+    private int createTemplate(String code, String kind, List<FieldDefinitionDTO> fields) throws IOException {
+        CreateTemplateVersionRequestDTO header = new CreateTemplateVersionRequestDTO();
+        header.code = code;
+        header.name = code;
+        header.kind = kind;
+        int headerId = call("POST", "/templates/version", header).path("data").path("id").asInt();
+
+        SaveFieldsVersionRequestDTO request = new SaveFieldsVersionRequestDTO();
+        request.templateId = headerId;
+        for (FieldDefinitionDTO f : fields) {
+            f.id = null;
+            request.fields.add(f);
+        }
+        return call("POST", "/templates/fields/version", request).path("data").path("id").asInt();
+    }
+
+    private static String partId(int item) {
+        return String.format("%s%04d", PART_PREFIX, item / 100);
+    }
+
+    // Items, the newest BENCH_IN version and its field ids, read back so a run can also skip seeding.
+    private void resolveDataset() throws Exception {
+        try (Connection conn = DriverManager.getConnection(dbUrl, dbUser, dbPassword)) {
+            itemIds = queryInts(conn, "SELECT id FROM \"1scale\".item_master WHERE part_id LIKE ? ORDER BY id", PART_PREFIX + "%");
+            partIds = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement("SELECT DISTINCT part_id FROM \"1scale\".item_master WHERE part_id LIKE ?")) {
+                ps.setString(1, PART_PREFIX + "%");
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        partIds.add(rs.getString(1));
+                    }
+                }
+            }
+            List<Integer> templates = queryInts(conn, "SELECT id FROM \"1scale\".sheet_template WHERE code = ? ORDER BY version DESC LIMIT 1", BenchData.INPUT_CODE);
+            if (itemIds.isEmpty() || templates.isEmpty()) {
+                throw new IllegalStateException("no bench dataset found; run with -Dbench.seed=true");
+            }
+            inputTemplateId = templates.get(0);
+            inputFieldIds = new ArrayList<>();
+            for (FieldDefinitionDTO f : BenchData.inputFields()) {
+                List<Integer> ids = queryInts(conn, "SELECT id FROM \"1scale\".field_definition WHERE template_id = " + inputTemplateId + " AND key = ?", f.key);
+                if (ids.isEmpty()) {
+                    throw new IllegalStateException("template " + inputTemplateId + " has no field " + f.key);
+                }
+                inputFieldIds.add(ids.get(0));
+            }
+        }
+        if (seed) {
+            seedSheets();
+        }
+        try (Connection conn = DriverManager.getConnection(dbUrl, dbUser, dbPassword)) {
+            sheetIds = queryInts(conn, "SELECT s.id FROM \"1scale\".sheet_instance s JOIN \"1scale\".item_master i ON i.id = s.item_id " +
+                    "WHERE i.part_id LIKE ? ORDER BY s.id DESC LIMIT 100000", PART_PREFIX + "%");
+        }
+        System.out.printf(Locale.ROOT, "dataset: %d items, %d parts, %d sheets, input template %d%n",
+                itemIds.size(), partIds.size(), sheetIds.size(), inputTemplateId);
+    }
+
+    private void seedSheets() throws IOException {
+        long start = System.nanoTime();
+        Random random = new Random(42);
+        List<CreateSheetRequestDTO> batch = new ArrayList<>();
+        int created = 0;
+        for (Integer itemId : itemIds) {
+            for (int s = 0; s < sheetsPerItem; s++) {
+                batch.add(sheetRequest(itemId, random));
+                if (batch.size() == 500) {
+                    created += call("POST", "/sheets/batch", batch).path("data").path("created").asInt();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            created += call("POST", "/sheets/batch", batch).path("data").path("created").asInt();
+        }
+        double secs = seconds(System.nanoTime() - start);
+        System.out.printf(Locale.ROOT, "seeded %d sheets through /sheets/batch in %.1f s (%.0f sheets/s)%n", created, secs, created / secs);
+    }
+
+    private CreateSheetRequestDTO sheetRequest(Integer itemId, Random random) {
+        CreateSheetRequestDTO request = new CreateSheetRequestDTO();
+        request.itemId = itemId;
+        request.templateId = inputTemplateId;
+        request.sheetDate = LocalDate.of(2026, 1, 1).plusDays(random.nextInt(365)).toString();
+        request.values = BenchData.renumber(BenchData.inputValues(random, tableRows), inputFieldIds);
+        return request;
+    }
+
+    private static List<Integer> queryInts(Connection conn, String sql, String arg) throws SQLException {
+        List<Integer> result = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, arg);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(rs.getInt(1));
+                }
+            }
+        }
+        return result;
+    }
+
+    // ---- load ----
+
+    private enum Scenario {
+        ITEM_TREE(5), WORKSPACE(15), SHEET_PAGE(20), SHEET(25), TEMPLATE_FIELDS(10), PART_RULES(10), CREATE_SHEET(0);
+
+        final int defaultWeight;
+
+        Scenario(int defaultWeight) {
+            this.defaultWeight = defaultWeight;
+        }
+    }
+
+    private void run() throws InterruptedException {
+        Scenario[] wheel = wheel();
+        long warmupEnd = System.nanoTime() + warmupSec * 1_000_000_000L;
+        long end = warmupEnd + durationSec * 1_000_000_000L;
+        List<Recorder> recorders = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            Thread thread = new Thread(() -> {
+                try {
+                    loop(wheel, recorder, warmupEnd, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-client-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        System.out.printf(Locale.ROOT, "running %d clients: %d s warmup, %d s measured%n", threads, warmupSec, durationSec);
+        done.await();
+        report(recorders);
+    }
+
+    private Scenario[] wheel() {
+        List<Scenario> wheel = new ArrayList<>();
+        for (Scenario s : Scenario.values()) {
+            int weight = s == Scenario.CREATE_SHEET ? writeWeight : s.defaultWeight;
+            for (int i = 0; i < weight; i++) {
+                wheel.add(s);
+            }
+        }
+        return wheel.toArray(new Scenario[0]);
+    }
+
+    private void loop(Scenario[] wheel, Recorder recorder, long warmupEnd, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Random valuesRandom = new Random(random.nextLong());
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            Scenario scenario = wheel[random.nextInt(wheel.length)];
+            boolean ok;
+            try {
+                ok = execute(scenario, random, valuesRandom);
+            } catch (IOException ex) {
+                ok = false;
+            }
+            long elapsed = System.nanoTime() - now;
+            if (now >= warmupEnd) {
+                recorder.record(scenario, elapsed, ok);
+            }
+        }
+    }
+
+    private boolean execute(Scenario scenario, ThreadLocalRandom random, Random valuesRandom) throws IOException {
+        Integer itemId = itemIds.get(random.nextInt(itemIds.size()));
+        switch (scenario) {
+            case ITEM_TREE:
+                return send("GET", "/items/tree", null) < 400;
+            case WORKSPACE:
+                return send("GET", "/items/" + itemId + "/workspace", null) < 400;
+            case SHEET_PAGE:
+                return send("GET", "/sheets/page?kind=INPUT&limit=50&itemId=" + itemId, null) < 400;
+            case SHEET:
+                return sheetIds.isEmpty() || send("GET", "/sheets/" + sheetIds.get(random.nextInt(sheetIds.size())), null) < 400;
+            case TEMPLATE_FIELDS:
+                return send("GET", "/templates/" + inputTemplateId + "/fields", null) < 400;
+            case PART_RULES:
+                return send("GET", "/part-template-mappings/" + partIds.get(random.nextInt(partIds.size())), null) < 400;
+            case CREATE_SHEET:
+                return send("POST", "/sheets", objectMapper.writeValueAsBytes(sheetRequest(itemId, valuesRandom))) < 400;
+            default:
+                throw new IllegalStateException(scenario.name());
+        }
+    }
+
+    private void report(List<Recorder> recorders) {
+        System.out.printf(Locale.ROOT, "%-16s %9s %7s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        long totalCount = 0;
+        long totalErrors = 0;
+        List<long[]> all = new ArrayList<>();
+        for (Scenario scenario : Scenario.values()) {
+            List<long[]> samples = new ArrayList<>();
+            long errors = 0;
+            for (Recorder r : recorders) {
+                samples.add(r.samples(scenario));
+                errors += r.errors[scenario.ordinal()];
+            }
+            long[] merged = merge(samples);
+            if (merged.length == 0) {
+                continue;
+            }
+            all.add(merged);
+            totalCount += merged.length;
+            totalErrors += errors;
+            printRow(scenario.name().toLowerCase(Locale.ROOT), merged, errors);
+        }
+        printRow("total", merge(all), totalErrors);
+        if (totalCount == 0) {
+            System.out.println("no requests completed in the measured window");
+        }
+    }
+
+    private void printRow(String name, long[] sorted, long errors) {
+        if (sorted.length == 0) {
+            return;
+        }
+        System.out.printf(Locale.ROOT, "%-16s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name, sorted.length, errors,
+                sorted.length / (double) durationSec, millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)),
+                millis(percentile(sorted, 0.99)), millis(sorted[sorted.length - 1]));
+    }
+
+    static long[] merge(List<long[]> parts) {
+        int n = 0;
+        for (long[] p : parts) {
+            n += p.length;
+        }
+        long[] merged = new long[n];
+        int at = 0;
+        for (long[] p : parts) {
+            System.arraycopy(p, 0, merged, at, p.length);
+            at += p.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    static long percentile(long[] sorted, double q) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(q * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    // Latencies of one client thread, one growable array per scenario.
+    private static final class Recorder {
+        final long[][] samples = new long[Scenario.values().length][1024];
+        final int[] counts = new int[Scenario.values().length];
+        final long[] errors = new long[Scenario.values().length];
+
+        void record(Scenario scenario, long nanos, boolean ok) {
+            int s = scenario.ordinal();
+            if (counts[s] == samples[s].length) {
+                samples[s] = Arrays.copyOf(samples[s], counts[s] * 2);
+            }
+            samples[s][counts[s]++] = nanos;
+            if (!ok) {
+                errors[s]++;
+            }
+        }
+
+        long[] samples(Scenario scenario) {
+            return Arrays.copyOf(samples[scenario.ordinal()], counts[scenario.ordinal()]);
+        }
+    }
+
+    // ---- http ----
+
+    private JsonNode call(String method, String path, Object body) throws IOException {
+        HttpURLConnection conn = open(method, path, objectMapper.writeValueAsBytes(body));
+        int status = conn.getResponseCode();
+        byte[] response = readFully(status < 400 ? conn.getInputStream() : conn.getErrorStream());
+        if (status >= 400) {
+            throw new IOException(method + " " + path + " failed with " + status + ": " + new String(response, "UTF-8"));
+        }
+        return objectMapper.readTree(response);
+    }
+
+    // Sends a request and drains the response so the keep-alive connection is reused; returns the status.
+    private int send(String method, String path, byte[] body) throws IOException {
+        HttpURLConnection conn = open(method, path, body);
+        int status = conn.getResponseCode();
+        readFully(status < 400 ? conn.getInputStream() : conn.getErrorStream());
+        return status;
+    }
+
+    private HttpURLConnection open(String method, String path, byte[] body) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        conn.setRequestMethod(method);
+        conn.setConnectTimeout(5000);
+        conn.setReadTimeout(60000);
+        conn.setRequestProperty("Accept", "application/json");
+        if (body != null) {
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body);
+            }
+        }
+        return conn;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        if (in == null) {
+            return new byte[0];
+        }
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = input.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
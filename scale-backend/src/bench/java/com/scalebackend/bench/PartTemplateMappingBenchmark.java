@@ -0,0 +1,71 @@
+package com.scalebackend.bench;
+
+import com.scalebackend.dao.impl.PartTemplateMappingDaoJdbc;
+import com.scalebackend.dto.PartTemplateMappingDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// PartTemplateMappingDaoJdbc.listMappings, dominated by toIntegerList over the two int4[] columns.
+// "boxed" returns Integer[] as PgJDBC does for int4[]; "text" returns String[] to cover the fallback branch.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PartTemplateMappingBenchmark {
+
+    @Param({"1000"})
+    public int mappings;
+
+    @Param({"4", "64"})
+    public int templatesPerMapping;
+
+    @Param({"boxed", "text"})
+    public String arrayType;
+
+    private PartTemplateMappingDaoJdbc dao;
+
+    @Setup
+    public void setUp() {
+        List<Object[]> rows = new ArrayList<>(mappings);
+        for (int i = 0; i < mappings; i++) {
+            rows.add(new Object[]{"P" + i, ids(i, templatesPerMapping), ids(i + 7, templatesPerMapping / 2), "2026-01-01 00:00:00+00"});
+        }
+        dao = DaoFixtures.partTemplateMappingDao(CannedDataSource.of(
+                new String[]{"part_id", "input_template_ids", "output_template_ids", "updated_at"}, rows));
+    }
+
+    private Object ids(int seed, int n) {
+        if ("text".equals(arrayType)) {
+            String[] ids = new String[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = String.valueOf(seed * 31 + i);
+            }
+            return ids;
+        }
+        Integer[] ids = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = seed * 31 + i;
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public List<PartTemplateMappingDTO> listMappings() {
+        return dao.listMappings();
+    }
+}
@@ -0,0 +1,55 @@
+package com.scalebackend.bench;
+
+import com.scalebackend.validation.SheetValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One validate() per submitted sheet against a template compiled once, as SheetValidatorCache serves it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SheetValidatorBenchmark {
+
+    @Param({"0", "50"})
+    public int tableRows;
+
+    private SheetValidator validator;
+    private Map<String, Object> values;
+
+    @Setup
+    public void setUp() {
+        validator = SheetValidator.compile(BenchData.inputFields());
+        values = BenchData.inputValues(new Random(42), tableRows);
+        List<String> errors = validator.validate(values);
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("bench values do not validate: " + errors);
+        }
+    }
+
+    @Benchmark
+    public List<String> validate() {
+        return validator.validate(values);
+    }
+
+    @Benchmark
+    public SheetValidator compile() {
+        return SheetValidator.compile(BenchData.inputFields());
+    }
+}
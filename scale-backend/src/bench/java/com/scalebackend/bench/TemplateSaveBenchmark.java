@@ -0,0 +1,51 @@
+package com.scalebackend.bench;
+
+import com.scalebackend.dao.impl.TemplateDaoJdbc;
+import com.scalebackend.dto.TemplateDTO;
+import com.scalebackend.dto.request.SaveFieldsVersionRequestDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+// TemplateDaoJdbc.saveFieldsAsNewVersion for templates of realistic size: the version INSERT ... RETURNING,
+// the JSON encoding of every field and the binding of the field batch, over a CannedDataSource. This is the
+// client side of a save; TemplateWriteHarness measures saves end to end against PostgreSQL.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TemplateSaveBenchmark {
+
+    @Param({"20", "200"})
+    public int fields;
+
+    private TemplateDaoJdbc dao;
+    private SaveFieldsVersionRequestDTO request;
+
+    @Setup
+    public void setUp() {
+        dao = DaoFixtures.templateDao(CannedDataSource.of(new String[]{"id", "code", "name", "kind", "version"},
+                Collections.singletonList(new Object[]{2, BenchData.INPUT_CODE, BenchData.INPUT_CODE, "INPUT", 2})));
+        request = new SaveFieldsVersionRequestDTO();
+        request.templateId = 1;
+        request.fields = BenchData.templateFields(fields);
+    }
+
+    @Benchmark
+    public TemplateDTO saveFieldsAsNewVersion() {
+        return dao.saveFieldsAsNewVersion(request);
+    }
+}
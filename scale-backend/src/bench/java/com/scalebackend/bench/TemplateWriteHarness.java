@@ -0,0 +1,254 @@
+package com.scalebackend.bench;
+
+import com.scalebackend.dao.impl.TemplateDaoJdbc;
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.TemplateDTO;
+import com.scalebackend.dto.request.CreateTemplateVersionRequestDTO;
+import com.scalebackend.dto.request.SaveFieldsVersionRequestDTO;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+// Concurrent template editors against PostgreSQL (schema from sqls.txt), through the real TemplateDaoJdbc
+// with one transaction per call as ScaleServiceImpl runs it.
+//
+// For each writer count in bench.writers, every writer alternates createTemplateVersion and
+// saveFieldsAsNewVersion (bench.fields fields) on one template code shared by all writers, so they all
+// contend for the same version counter row. Throughput and p50/p99/max latency per operation are printed
+// per writer count. Every version handed out is checked to be unique and to match the rows in
+// sheet_template; the run exits with status 1 otherwise. The BENCH_VER_* templates are deleted at the end.
+public class TemplateWriteHarness {
+
+    private static final String CODE_PREFIX = "BENCH_VER_";
+
+    private enum Operation {
+        CREATE, SAVE
+    }
+
+    private final int[] writerCounts;
+    private final int fieldCount;
+    private final int warmupSec;
+    private final int durationSec;
+
+    private final HikariDataSource dataSource;
+    private final TemplateDaoJdbc templateDao;
+    private final TransactionTemplate transactionTemplate;
+
+    private boolean failed;
+
+    private TemplateWriteHarness(Properties defaults) {
+        writerCounts = Arrays.stream(setting("bench.writers", "1,2,4,8,16").split(",")).mapToInt(w -> Integer.parseInt(w.trim())).toArray();
+        fieldCount = Integer.parseInt(setting("bench.fields", "200"));
+        warmupSec = Integer.parseInt(setting("bench.warmupSec", "3"));
+        durationSec = Integer.parseInt(setting("bench.durationSec", "10"));
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(setting("bench.db.url", defaults.getProperty("db.url")));
+        config.setUsername(setting("bench.db.username", defaults.getProperty("db.username")));
+        config.setPassword(setting("bench.db.password", defaults.getProperty("db.password")));
+        config.setMaximumPoolSize(Arrays.stream(writerCounts).max().orElse(1));
+        config.addDataSourceProperty("reWriteBatchedInserts", defaults.getProperty("db.reWriteBatchedInserts", "true"));
+        dataSource = new HikariDataSource(config);
+        templateDao = DaoFixtures.templateDao(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties defaults = new Properties();
+        try (InputStream in = TemplateWriteHarness.class.getResourceAsStream("/application.properties")) {
+            if (in != null) {
+                defaults.load(in);
+            }
+        }
+        TemplateWriteHarness harness = new TemplateWriteHarness(defaults);
+        try {
+            harness.run();
+        } finally {
+            harness.cleanUp();
+            harness.dataSource.close();
+        }
+        if (harness.failed) {
+            System.exit(1);
+        }
+    }
+
+    private static String setting(String name, String fallback) {
+        return System.getProperty(name, fallback);
+    }
+
+    private void run() throws InterruptedException {
+        List<FieldDefinitionDTO> fields = BenchData.templateFields(fieldCount);
+        System.out.printf(Locale.ROOT, "%d fields per save, %d s warmup and %d s measured per writer count%n", fields.size(), warmupSec, durationSec);
+        System.out.printf(Locale.ROOT, "%7s %-6s %8s %6s %9s %9s %9s %9s%n", "writers", "op", "calls", "errors", "calls/s", "p50 ms", "p99 ms", "max ms");
+        for (int writers : writerCounts) {
+            String code = CODE_PREFIX + writers + "_" + System.currentTimeMillis();
+            TemplateDTO base = createVersion(code);
+            List<Recorder> recorders = runWriters(writers, code, base.id, fields);
+            checkVersions(code, base, recorders);
+            long total = 0;
+            for (Operation op : Operation.values()) {
+                List<long[]> samples = new ArrayList<>();
+                long errors = 0;
+                for (Recorder r : recorders) {
+                    samples.add(r.samples(op));
+                    errors += r.errors[op.ordinal()];
+                }
+                long[] sorted = LoadHarness.merge(samples);
+                total += sorted.length;
+                if (sorted.length == 0) {
+                    System.out.printf(Locale.ROOT, "%7d %-6s %8d %6d%n", writers, op.name().toLowerCase(Locale.ROOT), 0, errors);
+                    continue;
+                }
+                System.out.printf(Locale.ROOT, "%7d %-6s %8d %6d %9.1f %9.2f %9.2f %9.2f%n", writers, op.name().toLowerCase(Locale.ROOT),
+                        sorted.length, errors, sorted.length / (double) durationSec, millis(LoadHarness.percentile(sorted, 0.50)),
+                        millis(LoadHarness.percentile(sorted, 0.99)), millis(sorted[sorted.length - 1]));
+            }
+            System.out.printf(Locale.ROOT, "%7d %-6s %8d %6s %9.1f%n", writers, "total", total, "", total / (double) durationSec);
+        }
+    }
+
+    // The versions returned to the writers (warmup included) must be distinct and be exactly the stored ones.
+    private void checkVersions(String code, TemplateDTO base, List<Recorder> recorders) {
+        Set<Integer> allocated = new HashSet<>();
+        allocated.add(base.version);
+        int calls = 1;
+        List<Integer> duplicates = new ArrayList<>();
+        for (Recorder r : recorders) {
+            for (int i = 0; i < r.versionCount; i++) {
+                calls++;
+                if (!allocated.add(r.versions[i])) {
+                    duplicates.add(r.versions[i]);
+                }
+            }
+        }
+        Set<Integer> stored = new HashSet<>(new JdbcTemplate(dataSource).queryForList(
+                "SELECT version FROM \"1scale\".sheet_template WHERE code = ?", Integer.class, code));
+        if (!duplicates.isEmpty() || !stored.equals(allocated)) {
+            failed = true;
+            System.out.printf(Locale.ROOT, "VERSION CHECK FAILED for %s: %d calls, %d distinct versions, %d stored, duplicates %s%n",
+                    code, calls, allocated.size(), stored.size(), duplicates.subList(0, Math.min(10, duplicates.size())));
+        } else {
+            System.out.printf(Locale.ROOT, "%s: %d versions allocated, all distinct and stored%n", code, calls);
+        }
+    }
+
+    private List<Recorder> runWriters(int writers, String code, int baseTemplateId, List<FieldDefinitionDTO> fields) throws InterruptedException {
+        long warmupEnd = System.nanoTime() + warmupSec * 1_000_000_000L;
+        long end = warmupEnd + durationSec * 1_000_000_000L;
+        List<Recorder> recorders = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(writers);
+        for (int w = 0; w < writers; w++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            int first = w;
+            Thread thread = new Thread(() -> {
+                try {
+                    // Writers start on alternating operations so creates and saves overlap from the first call.
+                    for (int i = first; ; i++) {
+                        long now = System.nanoTime();
+                        if (now >= end) {
+                            break;
+                        }
+                        Operation op = i % 2 == 0 ? Operation.CREATE : Operation.SAVE;
+                        boolean ok = true;
+                        try {
+                            TemplateDTO created = op == Operation.CREATE ? createVersion(code) : saveVersion(baseTemplateId, fields);
+                            recorder.version(created.version);
+                        } catch (RuntimeException ex) {
+                            ok = false;
+                            if (recorder.firstError == null) {
+                                recorder.firstError = ex.toString();
+                            }
+                        }
+                        if (now >= warmupEnd) {
+                            recorder.record(op, System.nanoTime() - now, ok);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-writer-" + w);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        for (Recorder r : recorders) {
+            if (r.firstError != null) {
+                System.out.println("first error: " + r.firstError);
+                break;
+            }
+        }
+        return recorders;
+    }
+
+    private TemplateDTO createVersion(String code) {
+        CreateTemplateVersionRequestDTO request = new CreateTemplateVersionRequestDTO();
+        request.code = code;
+        request.name = code;
+        request.kind = "INPUT";
+        return transactionTemplate.execute(status -> templateDao.createTemplateVersion(request));
+    }
+
+    private TemplateDTO saveVersion(int templateId, List<FieldDefinitionDTO> fields) {
+        SaveFieldsVersionRequestDTO request = new SaveFieldsVersionRequestDTO();
+        request.templateId = templateId;
+        request.fields = fields;
+        return transactionTemplate.execute(status -> templateDao.saveFieldsAsNewVersion(request));
+    }
+
+    // field_definition rows go with their templates (ON DELETE CASCADE).
+    private void cleanUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("DELETE FROM \"1scale\".sheet_template WHERE code LIKE ?", CODE_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM \"1scale\".sheet_template_version_counter WHERE code LIKE ?", CODE_PREFIX + "%");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    // Latencies of one writer thread, one growable array per operation, and every version it was handed.
+    private static final class Recorder {
+        final long[][] samples = new long[Operation.values().length][1024];
+        final int[] counts = new int[Operation.values().length];
+        final long[] errors = new long[Operation.values().length];
+        int[] versions = new int[1024];
+        int versionCount;
+        String firstError;
+
+        void version(int version) {
+            if (versionCount == versions.length) {
+                versions = Arrays.copyOf(versions, versionCount * 2);
+            }
+            versions[versionCount++] = version;
+        }
+
+        void record(Operation op, long nanos, boolean ok) {
+            int o = op.ordinal();
+            if (!ok) {
+                errors[o]++;
+                return;
+            }
+            if (counts[o] == samples[o].length) {
+                samples[o] = Arrays.copyOf(samples[o], counts[o] * 2);
+            }
+            samples[o][counts[o]++] = nanos;
+        }
+
+        long[] samples(Operation op) {
+            return Arrays.copyOf(samples[op.ordinal()], counts[op.ordinal()]);
+        }
+    }
+}
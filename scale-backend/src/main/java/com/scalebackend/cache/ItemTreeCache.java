@@ -0,0 +1,74 @@
+package com.scalebackend.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.dao.ItemDao;
+import com.scalebackend.dto.ItemTreeNodeDTO;
+import com.scalebackend.dto.response.ServiceMessageResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class ItemTreeCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemTreeCache.class);
+    private static final String DETAIL = "item tree fetched successfully.";
+
+    @Autowired
+    private ItemDao itemDao;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile Snapshot snapshot;
+
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${cache.itemTree.pollMs}")
+    public void poll() {
+        try {
+            refresh();
+        } catch (Exception ex) {
+            log.warn("item tree cache could not be refreshed: {}", ex.getMessage());
+        }
+    }
+
+    public synchronized Snapshot refresh() {
+        // The version is read before the rows, so a change racing the rebuild is picked up by the next poll.
+        String version = itemDao.findItemTreeVersion();
+        Snapshot current = snapshot;
+        if (current != null && current.version.equals(version)) {
+            return current;
+        }
+
+        List<ItemTreeNodeDTO> tree = itemDao.findItemTree();
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(ServiceMessageResponse.success(DETAIL, tree));
+        } catch (Exception e) {
+            throw new RuntimeException("Could not serialize item tree.", e);
+        }
+
+        Snapshot next = new Snapshot(version, tree, new JsonPayload(body));
+        snapshot = next;
+        return next;
+    }
+
+    public static class Snapshot {
+        public final String version;
+        public final List<ItemTreeNodeDTO> tree;
+        public final JsonPayload payload;
+
+        Snapshot(String version, List<ItemTreeNodeDTO> tree, JsonPayload payload) {
+            this.version = version;
+            this.tree = tree;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.scalebackend.cache;
+
+import org.springframework.util.DigestUtils;
+
+public class JsonPayload {
+    public final byte[] body;
+    public final String etag;
+
+    public JsonPayload(byte[] body) {
+        this.body = body;
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+}
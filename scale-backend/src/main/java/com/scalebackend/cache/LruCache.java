@@ -0,0 +1,91 @@
+package com.scalebackend.cache;
+
+import com.scalebackend.dto.CacheStatsDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class LruCache<K, V> {
+
+    private final String name;
+    private final int maxEntries;
+    private final LinkedHashMap<K, V> map;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruCache(String name, int maxEntries) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        V value;
+        synchronized (this) {
+            value = map.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public V getIfPresent(K key) {
+        V value;
+        synchronized (this) {
+            value = map.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    public synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStatsDTO dto = new CacheStatsDTO();
+        dto.name = name;
+        synchronized (this) {
+            dto.size = map.size();
+        }
+        dto.maxSize = maxEntries;
+        dto.hits = hits.sum();
+        dto.misses = misses.sum();
+        dto.evictions = evictions.sum();
+        long total = dto.hits + dto.misses;
+        dto.hitRatio = total == 0 ? 0d : (double) dto.hits / total;
+        return dto;
+    }
+}
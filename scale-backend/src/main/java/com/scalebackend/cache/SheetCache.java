@@ -0,0 +1,78 @@
+package com.scalebackend.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.dao.SheetDao;
+import com.scalebackend.dto.CacheStatsDTO;
+import com.scalebackend.dto.SheetRawDetailDTO;
+import com.scalebackend.dto.response.ServiceMessageResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class SheetCache {
+
+    private static final String DETAIL = "sheet fetched successfully.";
+
+    @Autowired
+    private SheetDao sheetDao;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LruCache<Integer, Entry> payloads;
+    private final int maxPayloadBytes;
+    private final long ttlNanos;
+
+    public SheetCache(@Value("${cache.sheets.maxEntries}") int maxEntries,
+                      @Value("${cache.sheets.maxPayloadBytes}") int maxPayloadBytes,
+                      @Value("${cache.sheets.ttlMs}") long ttlMs) {
+        this.payloads = new LruCache<>("sheets", maxEntries);
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    // The application never updates a sheet once written, but sheets do disappear: deleting an item or a
+    // template outside the application removes them by ON DELETE CASCADE. Entries expire after
+    // cache.sheets.ttlMs so a deleted sheet is not served for longer than that.
+    public JsonPayload getPayload(Integer sheetId) {
+        Entry entry = payloads.getIfPresent(sheetId);
+        long now = System.nanoTime();
+        if (entry != null) {
+            if (now - entry.loadedAt < ttlNanos) {
+                return entry.payload;
+            }
+            payloads.remove(sheetId);
+        }
+
+        SheetRawDetailDTO sheet = sheetDao.getSheetRaw(sheetId);
+        JsonPayload payload = encode(sheet);
+        if (sheet != null && payload.body.length <= maxPayloadBytes) {
+            payloads.put(sheetId, new Entry(payload, now));
+        }
+        return payload;
+    }
+
+    public CacheStatsDTO stats() {
+        return payloads.stats();
+    }
+
+    private JsonPayload encode(SheetRawDetailDTO sheet) {
+        try {
+            return new JsonPayload(objectMapper.writeValueAsBytes(ServiceMessageResponse.success(DETAIL, sheet)));
+        } catch (Exception e) {
+            throw new RuntimeException("Could not serialize sheet response.", e);
+        }
+    }
+
+    private static class Entry {
+        final JsonPayload payload;
+        final long loadedAt;
+
+        Entry(JsonPayload payload, long loadedAt) {
+            this.payload = payload;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
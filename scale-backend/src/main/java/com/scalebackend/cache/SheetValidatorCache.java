@@ -0,0 +1,58 @@
+package com.scalebackend.cache;
+
+import com.scalebackend.dto.CacheStatsDTO;
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.request.CreateSheetRequestDTO;
+import com.scalebackend.validation.SheetValidationException;
+import com.scalebackend.validation.SheetValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+@Component
+public class SheetValidatorCache {
+
+    @Autowired
+    private TemplateCache templateCache;
+
+    // Template versions are immutable, so a compiled validator never needs to be dropped. Only validators of
+    // existing templates with fields are kept: an id that does not exist yet must not stay cached as a
+    // template without fields once it is created.
+    private final LruCache<Integer, SheetValidator> validators;
+
+    public SheetValidatorCache(@Value("${cache.validators.maxEntries}") int maxEntries) {
+        this.validators = new LruCache<>("sheetValidators", maxEntries);
+    }
+
+    public void validate(CreateSheetRequestDTO request) {
+        List<String> errors = errors(request);
+        if (!errors.isEmpty()) {
+            throw new SheetValidationException(errors);
+        }
+    }
+
+    public List<String> errors(CreateSheetRequestDTO request) {
+        if (request.templateId == null) {
+            throw new IllegalArgumentException("templateId is required.");
+        }
+        if (templateCache.getTemplate(request.templateId) == null) {
+            return Collections.singletonList("template " + request.templateId + " does not exist.");
+        }
+        SheetValidator validator = validators.getIfPresent(request.templateId);
+        if (validator == null) {
+            List<FieldDefinitionDTO> fields = templateCache.getFields(request.templateId).fields;
+            validator = SheetValidator.compile(fields);
+            if (!fields.isEmpty()) {
+                validators.put(request.templateId, validator);
+            }
+        }
+        return validator.validate(request.values);
+    }
+
+    public CacheStatsDTO stats() {
+        return validators.stats();
+    }
+}
@@ -0,0 +1,197 @@
+package com.scalebackend.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.dao.TemplateDao;
+import com.scalebackend.dto.CacheStatsDTO;
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.TemplateDTO;
+import com.scalebackend.dto.response.ServiceMessageResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class TemplateCache {
+
+    private static final String TEMPLATES_DETAIL = "templates fetched successfully.";
+    private static final String FIELDS_DETAIL = "template fields fetched successfully.";
+    private static final List<String> KINDS = Arrays.asList("", "INPUT", "OUTPUT");
+
+    @Autowired
+    private TemplateDao templateDao;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LruCache<Integer, Fields> fieldsCache;
+
+    private final AtomicLong templatesGeneration = new AtomicLong();
+    private volatile Templates templates;
+    private final LongAdder templatesHits = new LongAdder();
+    private final LongAdder templatesMisses = new LongAdder();
+
+    public TemplateCache(@Value("${cache.templateFields.maxEntries}") int maxFieldEntries) {
+        this.fieldsCache = new LruCache<>("templateFields", maxFieldEntries);
+    }
+
+    public Fields getFields(Integer templateId) {
+        Fields cached = fieldsCache.getIfPresent(templateId);
+        if (cached != null) {
+            return cached;
+        }
+        // Same guard as the templates snapshot: fields loaded while a version commits must not be put back.
+        long generation = templatesGeneration.get();
+        List<FieldDefinitionDTO> fields = templateDao.listTemplateFields(templateId);
+        Fields loaded = new Fields(fields, encode(FIELDS_DETAIL, fields));
+        synchronized (this) {
+            if (templatesGeneration.get() == generation) {
+                fieldsCache.put(templateId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public List<TemplateDTO> getTemplates(String kind) {
+        String key = normalizeKind(kind);
+        Templates current = snapshot();
+        List<TemplateDTO> list = current.byKind.get(key);
+        return list != null ? list : filter(current.all, key);
+    }
+
+    public TemplateDTO getTemplate(Integer templateId) {
+        return snapshot().byId.get(templateId);
+    }
+
+    public JsonPayload getTemplatesPayload(String kind) {
+        String key = normalizeKind(kind);
+        Templates current = snapshot();
+        JsonPayload payload = current.payloads.get(key);
+        return payload != null ? payload : encode(TEMPLATES_DETAIL, filter(current.all, key));
+    }
+
+    public void invalidateAfterCommit(Integer createdTemplateId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(createdTemplateId);
+                }
+            });
+        } else {
+            invalidate(createdTemplateId);
+        }
+    }
+
+    public List<CacheStatsDTO> stats() {
+        CacheStatsDTO t = new CacheStatsDTO();
+        t.name = "templates";
+        t.size = templates == null ? 0 : 1;
+        t.maxSize = 1;
+        t.hits = templatesHits.sum();
+        t.misses = templatesMisses.sum();
+        long total = t.hits + t.misses;
+        t.hitRatio = total == 0 ? 0d : (double) t.hits / total;
+
+        List<CacheStatsDTO> result = new ArrayList<>();
+        result.add(t);
+        result.add(fieldsCache.stats());
+        return result;
+    }
+
+    private synchronized void invalidate(Integer createdTemplateId) {
+        templatesGeneration.incrementAndGet();
+        templates = null;
+        if (createdTemplateId != null) {
+            fieldsCache.remove(createdTemplateId);
+        }
+    }
+
+    private Templates snapshot() {
+        Templates current = templates;
+        if (current != null) {
+            templatesHits.increment();
+            return current;
+        }
+        templatesMisses.increment();
+
+        // A snapshot loaded while a new version commits must not be published over the invalidation.
+        long generation = templatesGeneration.get();
+        List<TemplateDTO> all = templateDao.listTemplates(null);
+        Map<String, List<TemplateDTO>> byKind = new HashMap<>();
+        Map<String, JsonPayload> payloads = new HashMap<>();
+        for (String kind : KINDS) {
+            List<TemplateDTO> list = filter(all, kind);
+            byKind.put(kind, list);
+            payloads.put(kind, encode(TEMPLATES_DETAIL, list));
+        }
+        Map<Integer, TemplateDTO> byId = new HashMap<>();
+        for (TemplateDTO t : all) {
+            byId.put(t.id, t);
+        }
+        Templates loaded = new Templates(all, byId, byKind, payloads);
+        synchronized (this) {
+            if (templatesGeneration.get() == generation) {
+                templates = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    private List<TemplateDTO> filter(List<TemplateDTO> all, String kind) {
+        if (kind.isEmpty()) {
+            return all;
+        }
+        List<TemplateDTO> result = new ArrayList<>();
+        for (TemplateDTO t : all) {
+            if (kind.equals(t.kind)) {
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    private String normalizeKind(String kind) {
+        return kind == null ? "" : kind.trim();
+    }
+
+    private JsonPayload encode(String detail, Object data) {
+        try {
+            return new JsonPayload(objectMapper.writeValueAsBytes(ServiceMessageResponse.success(detail, data)));
+        } catch (Exception e) {
+            throw new RuntimeException("Could not serialize template response.", e);
+        }
+    }
+
+    public static class Fields {
+        public final List<FieldDefinitionDTO> fields;
+        public final JsonPayload payload;
+
+        Fields(List<FieldDefinitionDTO> fields, JsonPayload payload) {
+            this.fields = fields;
+            this.payload = payload;
+        }
+    }
+
+    private static class Templates {
+        final List<TemplateDTO> all;
+        final Map<Integer, TemplateDTO> byId;
+        final Map<String, List<TemplateDTO>> byKind;
+        final Map<String, JsonPayload> payloads;
+
+        Templates(List<TemplateDTO> all, Map<Integer, TemplateDTO> byId, Map<String, List<TemplateDTO>> byKind, Map<String, JsonPayload> payloads) {
+            this.all = all;
+            this.byId = byId;
+            this.byKind = byKind;
+            this.payloads = payloads;
+        }
+    }
+}
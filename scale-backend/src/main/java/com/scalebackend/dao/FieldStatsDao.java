@@ -0,0 +1,13 @@
+package com.scalebackend.dao;
+
+import com.scalebackend.stats.FieldStats;
+import com.scalebackend.stats.FieldStatsKey;
+
+import java.time.LocalDate;
+import java.util.SortedMap;
+
+public interface FieldStatsDao {
+    void add(SortedMap<FieldStatsKey, FieldStats> stats);
+    SortedMap<LocalDate, FieldStats> findDaily(String templateCode, String fieldKey, LocalDate from, LocalDate to);
+    void rebuild();
+}
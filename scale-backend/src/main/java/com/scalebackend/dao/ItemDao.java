@@ -2,11 +2,17 @@ package com.scalebackend.dao;
 
 import com.scalebackend.dto.ItemDTO;
 import com.scalebackend.dto.ItemTreeNodeDTO;
+import com.scalebackend.dto.ItemTreePageDTO;
 
 import java.util.List;
 
 public interface ItemDao {
     List<ItemTreeNodeDTO> findItemTree();
+    String findItemTreeVersion();
     ItemDTO findById(Integer id);
     List<String> listPartIds();
+
+    ItemTreePageDTO findPartNodes(String prefix, String cursor, Integer limit);
+    ItemTreePageDTO findSerialNodes(String partId, String prefix, String cursor, Integer limit);
+    ItemTreePageDTO findBridgeNodes(String partId, String partSn, String cursor, Integer limit);
 }
@@ -0,0 +1,15 @@
+package com.scalebackend.dao;
+
+import com.scalebackend.dto.OutputQueueStatsDTO;
+import com.scalebackend.outputs.OutboxEntry;
+
+import java.util.List;
+
+public interface OutputOutboxDao {
+    int enqueue(List<Integer> inputSheetIds);
+    List<OutboxEntry> claim(int limit);
+    List<OutboxEntry> claim(Long id);
+    void delete(List<Long> ids);
+    void markFailed(Long id, String error, int maxAttempts, long backoffMs);
+    void fillQueueStats(OutputQueueStatsDTO stats);
+}
@@ -4,9 +4,11 @@ import com.scalebackend.dto.PartTemplateMappingDTO;
 import com.scalebackend.dto.TemplatesForPartDTO;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface PartTemplateMappingDao {
     List<PartTemplateMappingDTO> listMappings();
+    void streamMappings(Consumer<PartTemplateMappingDTO> consumer);
     TemplatesForPartDTO getTemplatesForPart(String partId);
     PartTemplateMappingDTO saveMapping(PartTemplateMappingDTO mapping);
 }
@@ -0,0 +1,23 @@
+package com.scalebackend.dao;
+
+import com.scalebackend.dto.ProjectionDTO;
+import com.scalebackend.projection.ProjectedSheet;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ProjectionDao {
+    ProjectionDTO createProjection(String templateCode, String tableName);
+    List<ProjectionDTO> listProjections();
+    List<String> listPendingBackfills();
+    ProjectionDTO claimBackfill(String templateCode);
+    void updateBackfill(String templateCode, Integer afterId);
+    Map<Integer, String> findTablesByTemplateIds(Collection<Integer> templateIds);
+    List<ProjectedSheet> findBackfillBatch(String templateCode, Integer afterId, Integer uptoId, int limit);
+    Set<String> findColumns(String tableName);
+    void createChildTable(String tableName, String parentTableName);
+    void addColumn(String tableName, String columnName, String sqlType);
+    void insertRows(String tableName, List<String> columns, List<Object[]> rows);
+}
@@ -2,13 +2,28 @@ package com.scalebackend.dao;
 
 import com.scalebackend.dto.SheetDTO;
 import com.scalebackend.dto.SheetDetailDTO;
+import com.scalebackend.dto.SheetPageDTO;
+import com.scalebackend.dto.SheetRawDetailDTO;
 import com.scalebackend.dto.request.CreateSheetRequestDTO;
+import com.scalebackend.dto.request.SheetPageRequestDTO;
+import com.scalebackend.dto.request.SheetSearchRequestDTO;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public interface SheetDao {
     SheetDTO createSheet(CreateSheetRequestDTO request);
+    List<SheetDTO> createSheets(List<CreateSheetRequestDTO> requests);
     List<SheetDTO> listItemSheets(Integer itemId, String kind);
+    void streamItemSheets(Integer itemId, String kind, Consumer<SheetDTO> consumer);
     List<SheetDTO> listInputOutputs(Integer inputSheetId);
+    SheetPageDTO findSheetPage(SheetPageRequestDTO request);
+    SheetPageDTO searchSheets(SheetSearchRequestDTO request, List<Integer> templateIds, List<List<Integer>> predicateFieldIds);
+    Map<Integer, List<SheetDTO>> listOutputsByInput(List<Integer> inputSheetIds);
     SheetDetailDTO getSheet(Integer sheetId);
+    SheetRawDetailDTO getSheetRaw(Integer sheetId);
+    Map<Integer, SheetDetailDTO> getSheets(List<Integer> sheetIds);
+    void streamOutputsWithInputs(Integer outputTemplateId, BiConsumer<SheetDetailDTO, SheetDetailDTO> consumer);
 }
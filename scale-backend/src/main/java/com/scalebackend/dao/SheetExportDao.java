@@ -0,0 +1,9 @@
+package com.scalebackend.dao;
+
+import com.scalebackend.dto.request.SheetExportRequestDTO;
+
+import java.io.OutputStream;
+
+public interface SheetExportDao {
+    long exportSheets(SheetExportRequestDTO request, OutputStream out);
+}
@@ -0,0 +1,127 @@
+package com.scalebackend.dao.impl;
+
+import com.scalebackend.dao.FieldStatsDao;
+import com.scalebackend.stats.FieldStats;
+import com.scalebackend.stats.FieldStatsKey;
+import com.scalebackend.stats.LogHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+@Repository
+public class FieldStatsDaoJdbc implements FieldStatsDao {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // value_m2 is merged like FieldStats.merge (Chan); every d.* on the right-hand side is the old row.
+    private static final String ADD_DAILY_SQL = "INSERT INTO \"1scale\".field_stat_daily AS d " +
+            "(template_code, field_key, day, value_count, value_sum, value_m2, value_min, value_max) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (template_code, field_key, day) DO UPDATE SET " +
+            "value_count = d.value_count + EXCLUDED.value_count, " +
+            "value_sum = d.value_sum + EXCLUDED.value_sum, " +
+            "value_m2 = d.value_m2 + EXCLUDED.value_m2 + (EXCLUDED.value_sum / EXCLUDED.value_count - d.value_sum / d.value_count) ^ 2 " +
+            "* d.value_count * EXCLUDED.value_count / (d.value_count + EXCLUDED.value_count), " +
+            "value_min = LEAST(d.value_min, EXCLUDED.value_min), " +
+            "value_max = GREATEST(d.value_max, EXCLUDED.value_max)";
+
+    private static final String ADD_BUCKET_SQL = "INSERT INTO \"1scale\".field_stat_bucket AS b " +
+            "(template_code, field_key, day, bucket, bucket_count) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (template_code, field_key, day, bucket) DO UPDATE SET bucket_count = b.bucket_count + EXCLUDED.bucket_count";
+
+    // Same bucket mapping as LogHistogram.bucketOf, evaluated in the database.
+    private static final String BUCKET_EXPR = "CASE WHEN abs(value) < ? THEN 0 " +
+            "WHEN value > 0 THEN ? + ceil(ln(value) / ?)::int " +
+            "ELSE -(? + ceil(ln(-value) / ?)::int) END";
+
+    private static final String REBUILD_SQL = "WITH v AS (" +
+            "SELECT t.code AS template_code, f.key AS field_key, " +
+            "COALESCE(s.sheet_date, (s.created_at AT TIME ZONE 'UTC')::date) AS day, " +
+            "(s.values_json -> f.id::text ->> 'value')::double precision AS value " +
+            "FROM \"1scale\".sheet_instance s " +
+            "JOIN \"1scale\".sheet_template t ON t.id = s.template_id " +
+            "JOIN \"1scale\".field_definition f ON f.template_id = s.template_id AND f.type = 'NUMBER' AND NOT f.is_multi " +
+            "WHERE jsonb_typeof(s.values_json -> f.id::text -> 'value') = 'number'), " +
+            "d AS (INSERT INTO \"1scale\".field_stat_daily " +
+            "(template_code, field_key, day, value_count, value_sum, value_m2, value_min, value_max) " +
+            "SELECT template_code, field_key, day, COUNT(*), SUM(value), VAR_POP(value) * COUNT(*), MIN(value), MAX(value) " +
+            "FROM v GROUP BY template_code, field_key, day) " +
+            "INSERT INTO \"1scale\".field_stat_bucket (template_code, field_key, day, bucket, bucket_count) " +
+            "SELECT template_code, field_key, day, " + BUCKET_EXPR + " AS bucket, COUNT(*) " +
+            "FROM v GROUP BY template_code, field_key, day, bucket";
+
+    @Override
+    public void add(SortedMap<FieldStatsKey, FieldStats> stats) {
+        // Keys are written in sorted order so concurrent writers lock shared rows in the same order.
+        List<Object[]> daily = new ArrayList<>();
+        List<Object[]> buckets = new ArrayList<>();
+        for (Map.Entry<FieldStatsKey, FieldStats> e : stats.entrySet()) {
+            FieldStatsKey k = e.getKey();
+            FieldStats s = e.getValue();
+            Date day = Date.valueOf(k.day);
+            daily.add(new Object[]{k.templateCode, k.fieldKey, day, s.count, s.sum, s.m2, s.min, s.max});
+            for (Map.Entry<Integer, Long> b : s.histogram.buckets().entrySet()) {
+                buckets.add(new Object[]{k.templateCode, k.fieldKey, day, b.getKey(), b.getValue()});
+            }
+        }
+        jdbcTemplate.batchUpdate(ADD_DAILY_SQL, daily);
+        jdbcTemplate.batchUpdate(ADD_BUCKET_SQL, buckets);
+    }
+
+    @Override
+    public SortedMap<LocalDate, FieldStats> findDaily(String templateCode, String fieldKey, LocalDate from, LocalDate to) {
+        StringBuilder range = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        args.add(templateCode);
+        args.add(fieldKey);
+        if (from != null) {
+            range.append(" AND day >= ?");
+            args.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            range.append(" AND day <= ?");
+            args.add(Date.valueOf(to));
+        }
+
+        SortedMap<LocalDate, FieldStats> result = new TreeMap<>();
+        jdbcTemplate.query("SELECT day, value_count, value_sum, value_m2, value_min, value_max FROM \"1scale\".field_stat_daily " +
+                "WHERE template_code = ? AND field_key = ?" + range, rs -> {
+            FieldStats s = new FieldStats();
+            s.count = rs.getLong("value_count");
+            s.sum = rs.getDouble("value_sum");
+            s.m2 = rs.getDouble("value_m2");
+            s.min = rs.getDouble("value_min");
+            s.max = rs.getDouble("value_max");
+            result.put(rs.getDate("day").toLocalDate(), s);
+        }, args.toArray());
+
+        jdbcTemplate.query("SELECT day, bucket, bucket_count FROM \"1scale\".field_stat_bucket " +
+                "WHERE template_code = ? AND field_key = ?" + range, rs -> {
+            FieldStats s = result.get(rs.getDate("day").toLocalDate());
+            if (s != null) {
+                s.histogram.add(rs.getInt("bucket"), rs.getLong("bucket_count"));
+            }
+        }, args.toArray());
+        return result;
+    }
+
+    @Override
+    public void rebuild() {
+        // EXCLUSIVE still allows reads but makes concurrent createSheet rollups wait, so each sheet is
+        // counted exactly once: either by this scan or by its own upsert after the rebuild commits.
+        jdbcTemplate.execute("LOCK TABLE \"1scale\".field_stat_daily, \"1scale\".field_stat_bucket IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM \"1scale\".field_stat_bucket");
+        jdbcTemplate.update("DELETE FROM \"1scale\".field_stat_daily");
+        jdbcTemplate.update(REBUILD_SQL, LogHistogram.ZERO_THRESHOLD, LogHistogram.BUCKET_OFFSET, LogHistogram.LOG_GAMMA,
+                LogHistogram.BUCKET_OFFSET, LogHistogram.LOG_GAMMA);
+    }
+}
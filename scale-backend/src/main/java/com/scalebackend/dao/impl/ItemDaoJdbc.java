@@ -3,6 +3,7 @@ package com.scalebackend.dao.impl;
 import com.scalebackend.dao.ItemDao;
 import com.scalebackend.dto.ItemDTO;
 import com.scalebackend.dto.ItemTreeNodeDTO;
+import com.scalebackend.dto.ItemTreePageDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
@@ -11,10 +12,14 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Repository
 public class ItemDaoJdbc implements ItemDao {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -64,6 +69,12 @@ public class ItemDaoJdbc implements ItemDao {
         return new ArrayList<>(partMap.values());
     }
 
+    @Override
+    public String findItemTreeVersion() {
+        final String sql = "SELECT COUNT(*)::text || ':' || COALESCE(MAX(id), 0)::text || ':' || COALESCE(MAX(updated_at)::text, '') FROM \"1scale\".item_master";
+        return jdbcTemplate.queryForObject(sql, String.class);
+    }
+
     @Override
     public ItemDTO findById(Integer id) {
         final String sql = "SELECT id, part_id, part_sn, bridge_name FROM \"1scale\".item_master WHERE id = ?";
@@ -83,5 +94,107 @@ public class ItemDaoJdbc implements ItemDao {
         final String sql = "SELECT DISTINCT part_id FROM \"1scale\".item_master WHERE is_active = TRUE ORDER BY part_id";
         return jdbcTemplate.query(sql, (rs, i) -> rs.getString(1));
     }
-}
 
+    @Override
+    public ItemTreePageDTO findPartNodes(String prefix, String cursor, Integer limit) {
+        StringBuilder sql = new StringBuilder("SELECT part_id, COUNT(DISTINCT part_sn) AS child_count FROM \"1scale\".item_master WHERE is_active = TRUE");
+        List<Object> args = new ArrayList<>();
+        appendKeyFilters(sql, args, "part_id", prefix, cursor);
+        sql.append(" GROUP BY part_id ORDER BY part_id LIMIT ?");
+
+        int pageSize = KeysetCursor.clampLimit(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        args.add(pageSize + 1);
+
+        List<ItemTreeNodeDTO> nodes = jdbcTemplate.query(sql.toString(), args.toArray(), (rs, i) -> {
+            ItemTreeNodeDTO n = new ItemTreeNodeDTO();
+            n.partId = rs.getString("part_id");
+            n.key = "part-" + n.partId;
+            n.label = "Part " + n.partId;
+            n.type = "PART";
+            n.childCount = rs.getInt("child_count");
+            return n;
+        });
+        return toPage(nodes, pageSize, n -> n.partId);
+    }
+
+    @Override
+    public ItemTreePageDTO findSerialNodes(String partId, String prefix, String cursor, Integer limit) {
+        StringBuilder sql = new StringBuilder("SELECT part_sn, COUNT(*) AS child_count FROM \"1scale\".item_master WHERE is_active = TRUE AND part_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(partId);
+        appendKeyFilters(sql, args, "part_sn", prefix, cursor);
+        sql.append(" GROUP BY part_sn ORDER BY part_sn LIMIT ?");
+
+        int pageSize = KeysetCursor.clampLimit(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        args.add(pageSize + 1);
+
+        List<ItemTreeNodeDTO> nodes = jdbcTemplate.query(sql.toString(), args.toArray(), (rs, i) -> {
+            ItemTreeNodeDTO n = new ItemTreeNodeDTO();
+            n.partId = partId;
+            n.partSn = rs.getString("part_sn");
+            n.key = "sn-" + n.partSn;
+            n.label = n.partSn;
+            n.type = "SERIAL";
+            n.childCount = rs.getInt("child_count");
+            return n;
+        });
+        return toPage(nodes, pageSize, n -> n.partSn);
+    }
+
+    @Override
+    public ItemTreePageDTO findBridgeNodes(String partId, String partSn, String cursor, Integer limit) {
+        StringBuilder sql = new StringBuilder("SELECT id, bridge_name FROM \"1scale\".item_master WHERE is_active = TRUE AND part_id = ? AND part_sn = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(partId);
+        args.add(partSn);
+        appendKeyFilters(sql, args, "bridge_name", null, cursor);
+        sql.append(" ORDER BY bridge_name LIMIT ?");
+
+        int pageSize = KeysetCursor.clampLimit(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        args.add(pageSize + 1);
+
+        List<ItemTreeNodeDTO> nodes = jdbcTemplate.query(sql.toString(), args.toArray(), (rs, i) -> {
+            ItemTreeNodeDTO n = new ItemTreeNodeDTO();
+            n.itemId = rs.getInt("id");
+            n.partId = partId;
+            n.partSn = partSn;
+            n.key = "bridge-" + n.itemId;
+            n.label = rs.getString("bridge_name");
+            n.type = "BRIDGE";
+            return n;
+        });
+        return toPage(nodes, pageSize, n -> n.label);
+    }
+
+    private void appendKeyFilters(StringBuilder sql, List<Object> args, String column, String prefix, String cursor) {
+        String[] after = KeysetCursor.decode(cursor, 1);
+        if (after != null) {
+            sql.append(" AND ").append(column).append(" > ?");
+            args.add(after[0]);
+        }
+        if (prefix != null && !prefix.trim().isEmpty()) {
+            String p = prefix.trim();
+            // Both bounds keep the index range scan inside the prefix; LIKE only rechecks the rows in it.
+            sql.append(" AND ").append(column).append(" >= ?");
+            args.add(p);
+            String successor = KeysetCursor.prefixSuccessor(p);
+            if (successor != null) {
+                sql.append(" AND ").append(column).append(" < ?");
+                args.add(successor);
+            }
+            sql.append(" AND ").append(column).append(" LIKE ?");
+            args.add(KeysetCursor.likePrefix(p));
+        }
+    }
+
+    private ItemTreePageDTO toPage(List<ItemTreeNodeDTO> nodes, int pageSize, Function<ItemTreeNodeDTO, String> sortKey) {
+        ItemTreePageDTO page = new ItemTreePageDTO();
+        if (nodes.size() > pageSize) {
+            page.nodes = new ArrayList<>(nodes.subList(0, pageSize));
+            page.nextCursor = KeysetCursor.encode(sortKey.apply(page.nodes.get(pageSize - 1)));
+        } else {
+            page.nodes = nodes;
+        }
+        return page;
+    }
+}
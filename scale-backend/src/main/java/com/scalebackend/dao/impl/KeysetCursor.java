@@ -0,0 +1,60 @@
+package com.scalebackend.dao.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+final class KeysetCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private KeysetCursor() {
+    }
+
+    static String encode(String... values) {
+        String joined = String.join(SEPARATOR, values);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decode(String cursor, int parts) {
+        if (cursor == null || cursor.trim().isEmpty()) {
+            return null;
+        }
+        String[] values;
+        try {
+            values = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor.", ex);
+        }
+        if (values.length != parts) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        return values;
+    }
+
+    static int clampLimit(Integer limit, int defaultLimit, int maxLimit) {
+        if (limit == null || limit <= 0) {
+            return defaultLimit;
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    // Smallest string above every string starting with prefix: the prefix with its last code point
+    // incremented (dropping trailing U+10FFFF), or null when there is none.
+    static String prefixSuccessor(String prefix) {
+        int end = prefix.length();
+        while (end > 0) {
+            int last = prefix.codePointBefore(end);
+            int start = end - Character.charCount(last);
+            if (last < Character.MAX_CODE_POINT) {
+                int next = last + 1 == Character.MIN_SURROGATE ? Character.MAX_SURROGATE + 1 : last + 1;
+                return new StringBuilder(prefix.substring(0, start)).appendCodePoint(next).toString();
+            }
+            end = start;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,123 @@
+package com.scalebackend.dao.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.dao.OutputOutboxDao;
+import com.scalebackend.dto.OutputQueueStatsDTO;
+import com.scalebackend.outputs.OutboxEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class OutputOutboxDaoJdbc implements OutputOutboxDao {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Claimed rows stay locked until the worker's transaction commits (and deletes them) or rolls back;
+    // SKIP LOCKED lets the other workers take the next rows instead of queueing behind it.
+    private static final String CLAIM_SQL = "WITH c AS (SELECT id FROM \"1scale\".output_outbox WHERE %s " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "SELECT o.id AS outbox_id, s.id, s.item_id, s.template_id, s.sheet_date::text AS sheet_date, s.values_json::text AS values_json, " +
+            "COALESCE(m.output_template_ids, '{}') AS output_template_ids " +
+            "FROM c JOIN \"1scale\".output_outbox o ON o.id = c.id " +
+            "JOIN \"1scale\".sheet_instance s ON s.id = o.input_sheet_id " +
+            "JOIN \"1scale\".item_master i ON i.id = s.item_id " +
+            "LEFT JOIN \"1scale\".part_template_mapping m ON m.part_id = i.part_id " +
+            "ORDER BY o.id";
+
+    @Override
+    public int enqueue(List<Integer> inputSheetIds) {
+        if (inputSheetIds.isEmpty()) {
+            return 0;
+        }
+        final String sql = "INSERT INTO \"1scale\".output_outbox (input_sheet_id) " +
+                "SELECT s.id FROM \"1scale\".sheet_instance s " +
+                "JOIN \"1scale\".item_master i ON i.id = s.item_id " +
+                "JOIN \"1scale\".part_template_mapping m ON m.part_id = i.part_id " +
+                "WHERE s.id = ANY(?) AND s.kind = 'INPUT' AND cardinality(m.output_template_ids) > 0";
+        return jdbcTemplate.update(conn -> {
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ps.setArray(1, conn.createArrayOf("integer", inputSheetIds.toArray(new Integer[0])));
+            return ps;
+        });
+    }
+
+    @Override
+    public List<OutboxEntry> claim(int limit) {
+        return jdbcTemplate.query(String.format(CLAIM_SQL, "failed_at IS NULL AND next_attempt_at <= NOW()"),
+                (rs, i) -> mapEntry(rs), limit);
+    }
+
+    @Override
+    public List<OutboxEntry> claim(Long id) {
+        return jdbcTemplate.query(String.format(CLAIM_SQL, "id = ? AND failed_at IS NULL"),
+                (rs, i) -> mapEntry(rs), id, 1);
+    }
+
+    @Override
+    public void delete(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(conn -> {
+            PreparedStatement ps = conn.prepareStatement("DELETE FROM \"1scale\".output_outbox WHERE id = ANY(?)");
+            ps.setArray(1, conn.createArrayOf("bigint", ids.toArray(new Long[0])));
+            return ps;
+        });
+    }
+
+    @Override
+    public void markFailed(Long id, String error, int maxAttempts, long backoffMs) {
+        jdbcTemplate.update("UPDATE \"1scale\".output_outbox SET attempts = attempts + 1, last_error = ?, " +
+                        "next_attempt_at = NOW() + (? * power(2, attempts)) * INTERVAL '1 millisecond', " +
+                        "failed_at = CASE WHEN attempts + 1 >= ? THEN NOW() END " +
+                        "WHERE id = ?",
+                error, backoffMs, maxAttempts, id);
+    }
+
+    @Override
+    public void fillQueueStats(OutputQueueStatsDTO stats) {
+        jdbcTemplate.query("SELECT COUNT(*) FILTER (WHERE failed_at IS NULL) AS pending, " +
+                "COUNT(*) FILTER (WHERE failed_at IS NOT NULL) AS failed, " +
+                "(EXTRACT(EPOCH FROM NOW() - MIN(enqueued_at) FILTER (WHERE failed_at IS NULL)) * 1000)::bigint AS oldest_ms " +
+                "FROM \"1scale\".output_outbox", rs -> {
+            stats.pending = rs.getLong("pending");
+            stats.failed = rs.getLong("failed");
+            stats.oldestPendingAgeMs = (Long) rs.getObject("oldest_ms");
+        });
+    }
+
+    private OutboxEntry mapEntry(ResultSet rs) throws SQLException {
+        OutboxEntry entry = new OutboxEntry();
+        entry.id = rs.getLong("outbox_id");
+        entry.inputSheetId = rs.getInt("id");
+        entry.itemId = rs.getInt("item_id");
+        entry.templateId = rs.getInt("template_id");
+        entry.sheetDate = rs.getString("sheet_date");
+        try {
+            String valuesText = rs.getString("values_json");
+            entry.values = valuesText == null ? Collections.emptyMap()
+                    : objectMapper.readValue(valuesText, new TypeReference<Map<String, Object>>(){});
+        } catch (Exception ex) {
+            throw new RuntimeException("Could not deserialize values_json", ex);
+        }
+        Array outputs = rs.getArray("output_template_ids");
+        if (outputs != null) {
+            entry.outputTemplateIds.addAll(Arrays.asList((Integer[]) outputs.getArray()));
+        }
+        return entry;
+    }
+}
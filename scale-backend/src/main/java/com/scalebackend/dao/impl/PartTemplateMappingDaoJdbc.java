@@ -4,17 +4,22 @@ import com.scalebackend.dao.PartTemplateMappingDao;
 import com.scalebackend.dto.PartTemplateMappingDTO;
 import com.scalebackend.dto.TemplatesForPartDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class PartTemplateMappingDaoJdbc implements PartTemplateMappingDao {
@@ -25,17 +30,23 @@ public class PartTemplateMappingDaoJdbc implements PartTemplateMappingDao {
     @Autowired
     private DataSource dataSource;
 
+    @Value("${db.streaming.fetchSize}")
+    private int streamFetchSize;
+
+    private static final String LIST_MAPPINGS_SQL = "SELECT part_id, input_template_ids, output_template_ids, updated_at::text AS updated_at FROM \"1scale\".part_template_mapping ORDER BY part_id";
+
     @Override
     public List<PartTemplateMappingDTO> listMappings() {
-        final String sql = "SELECT part_id, input_template_ids, output_template_ids, updated_at::text AS updated_at FROM \"1scale\".part_template_mapping ORDER BY part_id";
-        return jdbcTemplate.query(sql, (rs, i) -> {
-            PartTemplateMappingDTO dto = new PartTemplateMappingDTO();
-            dto.partId = rs.getString("part_id");
-            dto.inputTemplateIds = toIntegerList(rs.getArray("input_template_ids"));
-            dto.outputTemplateIds = toIntegerList(rs.getArray("output_template_ids"));
-            dto.updatedAt = rs.getString("updated_at");
-            return dto;
-        });
+        return jdbcTemplate.query(LIST_MAPPINGS_SQL, (rs, i) -> mapMapping(rs));
+    }
+
+    @Override
+    public void streamMappings(Consumer<PartTemplateMappingDTO> consumer) {
+        jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement(LIST_MAPPINGS_SQL);
+            ps.setFetchSize(streamFetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapMapping(rs)));
     }
 
     @Override
@@ -57,25 +68,26 @@ public class PartTemplateMappingDaoJdbc implements PartTemplateMappingDao {
     public PartTemplateMappingDTO saveMapping(PartTemplateMappingDTO mapping) {
         final String sql = "INSERT INTO \"1scale\".part_template_mapping(part_id, input_template_ids, output_template_ids, updated_at) " +
                 "VALUES (?, ?, ?, NOW()) " +
-                "ON CONFLICT (part_id) DO UPDATE SET input_template_ids = EXCLUDED.input_template_ids, output_template_ids = EXCLUDED.output_template_ids, updated_at = NOW()";
+                "ON CONFLICT (part_id) DO UPDATE SET input_template_ids = EXCLUDED.input_template_ids, output_template_ids = EXCLUDED.output_template_ids, updated_at = NOW() " +
+                "RETURNING part_id, input_template_ids, output_template_ids, updated_at::text AS updated_at";
 
-        jdbcTemplate.update(conn -> {
+        List<PartTemplateMappingDTO> rows = jdbcTemplate.query(conn -> {
             PreparedStatement ps = conn.prepareStatement(sql);
             ps.setString(1, mapping.partId);
             ps.setArray(2, createIntArray(conn, mapping.inputTemplateIds));
             ps.setArray(3, createIntArray(conn, mapping.outputTemplateIds));
             return ps;
-        });
+        }, (rs, i) -> mapMapping(rs));
+        return rows.get(0);
+    }
 
-        final String select = "SELECT part_id, input_template_ids, output_template_ids, updated_at::text AS updated_at FROM \"1scale\".part_template_mapping WHERE part_id = ?";
-        return jdbcTemplate.queryForObject(select, new Object[]{mapping.partId}, (rs, i) -> {
-            PartTemplateMappingDTO dto = new PartTemplateMappingDTO();
-            dto.partId = rs.getString("part_id");
-            dto.inputTemplateIds = toIntegerList(rs.getArray("input_template_ids"));
-            dto.outputTemplateIds = toIntegerList(rs.getArray("output_template_ids"));
-            dto.updatedAt = rs.getString("updated_at");
-            return dto;
-        });
+    private PartTemplateMappingDTO mapMapping(ResultSet rs) throws SQLException {
+        PartTemplateMappingDTO dto = new PartTemplateMappingDTO();
+        dto.partId = rs.getString("part_id");
+        dto.inputTemplateIds = toIntegerList(rs.getArray("input_template_ids"));
+        dto.outputTemplateIds = toIntegerList(rs.getArray("output_template_ids"));
+        dto.updatedAt = rs.getString("updated_at");
+        return dto;
     }
 
     private Array createIntArray(Connection conn, List<Integer> data) throws java.sql.SQLException {
@@ -0,0 +1,168 @@
+package com.scalebackend.dao.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.dao.ProjectionDao;
+import com.scalebackend.dto.ProjectionDTO;
+import com.scalebackend.projection.ProjectedSheet;
+import com.scalebackend.projection.ProjectionNames;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+public class ProjectionDaoJdbc implements ProjectionDao {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String PROJECTION_COLUMNS = "template_code, table_name, backfill_after_id, backfill_upto_id";
+
+    @Override
+    public ProjectionDTO createProjection(String templateCode, String tableName) {
+        // SHARE waits for in-flight sheet inserts and holds new ones until commit: every sheet is then either
+        // at or below backfill_upto_id, or created after this commits and projected by its own transaction.
+        jdbcTemplate.execute("LOCK TABLE \"1scale\".sheet_instance IN SHARE MODE");
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS \"" + ProjectionNames.SCHEMA + "\"");
+        String table = ProjectionNames.qualified(tableName);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "sheet_id INTEGER PRIMARY KEY REFERENCES \"1scale\".sheet_instance(id) ON DELETE CASCADE, " +
+                "item_id INTEGER NOT NULL, " +
+                "template_id INTEGER NOT NULL, " +
+                "kind VARCHAR(20) NOT NULL, " +
+                "sheet_day DATE NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS \"" + tableName + "_day\" ON " + table + " (sheet_day)");
+
+        jdbcTemplate.update("INSERT INTO \"1scale\".projection (" + PROJECTION_COLUMNS + ") " +
+                "SELECT ?, ?, 0, COALESCE(MAX(id), 0) FROM \"1scale\".sheet_instance " +
+                "ON CONFLICT (template_code) DO NOTHING", templateCode, tableName);
+        return jdbcTemplate.queryForObject("SELECT " + PROJECTION_COLUMNS + " FROM \"1scale\".projection WHERE template_code = ?",
+                (rs, i) -> mapProjection(rs), templateCode);
+    }
+
+    @Override
+    public List<ProjectionDTO> listProjections() {
+        return jdbcTemplate.query("SELECT " + PROJECTION_COLUMNS + " FROM \"1scale\".projection ORDER BY template_code",
+                (rs, i) -> mapProjection(rs));
+    }
+
+    @Override
+    public List<String> listPendingBackfills() {
+        return jdbcTemplate.queryForList("SELECT template_code FROM \"1scale\".projection " +
+                "WHERE backfill_after_id < backfill_upto_id ORDER BY template_code", String.class);
+    }
+
+    @Override
+    public ProjectionDTO claimBackfill(String templateCode) {
+        // Another instance working on the same projection keeps its row lock; skip instead of waiting.
+        List<ProjectionDTO> rows = jdbcTemplate.query("SELECT " + PROJECTION_COLUMNS + " FROM \"1scale\".projection " +
+                        "WHERE template_code = ? AND backfill_after_id < backfill_upto_id FOR UPDATE SKIP LOCKED",
+                (rs, i) -> mapProjection(rs), templateCode);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public void updateBackfill(String templateCode, Integer afterId) {
+        jdbcTemplate.update("UPDATE \"1scale\".projection SET backfill_after_id = ? WHERE template_code = ?", afterId, templateCode);
+    }
+
+    @Override
+    public Map<Integer, String> findTablesByTemplateIds(Collection<Integer> templateIds) {
+        Map<Integer, String> result = new HashMap<>();
+        if (templateIds.isEmpty()) {
+            return result;
+        }
+        final String sql = "SELECT t.id, p.table_name FROM \"1scale\".projection p " +
+                "JOIN \"1scale\".sheet_template t ON t.code = p.template_code WHERE t.id = ANY(?)";
+        jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ps.setArray(1, conn.createArrayOf("integer", templateIds.toArray(new Integer[0])));
+            return ps;
+        }, (RowCallbackHandler) rs -> result.put(rs.getInt("id"), rs.getString("table_name")));
+        return result;
+    }
+
+    @Override
+    public List<ProjectedSheet> findBackfillBatch(String templateCode, Integer afterId, Integer uptoId, int limit) {
+        final String sql = "SELECT s.id, s.item_id, s.template_id, s.kind, " +
+                "COALESCE(s.sheet_date, (s.created_at AT TIME ZONE 'UTC')::date) AS sheet_day, s.values_json::text AS values_json " +
+                "FROM \"1scale\".sheet_instance s JOIN \"1scale\".sheet_template t ON t.id = s.template_id " +
+                "WHERE t.code = ? AND s.id > ? AND s.id <= ? ORDER BY s.id LIMIT ?";
+        return jdbcTemplate.query(sql, (rs, i) -> {
+            ProjectedSheet sheet = new ProjectedSheet();
+            sheet.id = rs.getInt("id");
+            sheet.itemId = rs.getInt("item_id");
+            sheet.templateId = rs.getInt("template_id");
+            sheet.kind = rs.getString("kind");
+            sheet.day = rs.getDate("sheet_day").toLocalDate();
+            try {
+                String valuesText = rs.getString("values_json");
+                sheet.values = valuesText == null ? Collections.emptyMap()
+                        : objectMapper.readValue(valuesText, new TypeReference<Map<String, Object>>(){});
+            } catch (Exception ex) {
+                throw new RuntimeException("Could not deserialize values_json", ex);
+            }
+            return sheet;
+        }, templateCode, afterId, uptoId, limit);
+    }
+
+    @Override
+    public Set<String> findColumns(String tableName) {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT column_name FROM information_schema.columns " +
+                "WHERE table_schema = ? AND table_name = ?", String.class, ProjectionNames.SCHEMA, tableName));
+    }
+
+    @Override
+    public void createChildTable(String tableName, String parentTableName) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + ProjectionNames.qualified(tableName) + " (" +
+                "sheet_id INTEGER NOT NULL REFERENCES " + ProjectionNames.qualified(parentTableName) + "(sheet_id) ON DELETE CASCADE, " +
+                "row_no INTEGER NOT NULL, " +
+                "PRIMARY KEY (sheet_id, row_no))");
+    }
+
+    @Override
+    public void addColumn(String tableName, String columnName, String sqlType) {
+        // Nullable without a default, so PostgreSQL only updates the catalog and never rewrites the table.
+        jdbcTemplate.execute("ALTER TABLE " + ProjectionNames.qualified(tableName) +
+                " ADD COLUMN IF NOT EXISTS \"" + columnName + "\" " + sqlType);
+    }
+
+    @Override
+    public void insertRows(String tableName, List<String> columns, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(ProjectionNames.qualified(tableName)).append(" (");
+        StringBuilder params = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append('"').append(columns.get(i)).append('"');
+            params.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") VALUES (").append(params).append(") ON CONFLICT DO NOTHING");
+        jdbcTemplate.batchUpdate(sql.toString(), rows);
+    }
+
+    private ProjectionDTO mapProjection(ResultSet rs) throws SQLException {
+        ProjectionDTO dto = new ProjectionDTO();
+        dto.templateCode = rs.getString("template_code");
+        dto.tableName = rs.getString("table_name");
+        dto.backfillAfterId = rs.getInt("backfill_after_id");
+        dto.backfillUptoId = rs.getInt("backfill_upto_id");
+        dto.backfilled = dto.backfillAfterId >= dto.backfillUptoId;
+        return dto;
+    }
+}
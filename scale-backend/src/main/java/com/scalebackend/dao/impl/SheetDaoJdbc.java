@@ -5,18 +5,30 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.scalebackend.dao.SheetDao;
 import com.scalebackend.dto.SheetDTO;
 import com.scalebackend.dto.SheetDetailDTO;
+import com.scalebackend.dto.SheetPageDTO;
+import com.scalebackend.dto.SheetRawDetailDTO;
 import com.scalebackend.dto.request.CreateSheetRequestDTO;
+import com.scalebackend.dto.request.SheetPageRequestDTO;
+import com.scalebackend.dto.request.SheetSearchRequestDTO;
+import com.scalebackend.metrics.LatencyMetrics;
+import com.scalebackend.metrics.LatencyTimer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Repository
 public class SheetDaoJdbc implements SheetDao {
@@ -24,24 +36,49 @@ public class SheetDaoJdbc implements SheetDao {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    private static final int BATCH_CHUNK_SIZE = 500;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private static final String SHEET_COLUMNS = "id, item_id, template_id, created_at::text AS created_at, sheet_date::text AS sheet_date, parent_sheet_id, output_template_id, kind";
+
+    private static final String GET_SHEET_SQL = "SELECT " + SHEET_COLUMNS + ", values_json::text AS values_json " +
+            "FROM \"1scale\".sheet_instance WHERE id = ?";
+
+    // Must stay identical to the expression in idx_sheet_instance_item_kind_sort_at (sqls.txt); it is the
+    // immutable form of COALESCE(sheet_date, created_at) so the listing can be read straight off the index.
+    static final String SORT_AT = "COALESCE(sheet_date::timestamp, created_at AT TIME ZONE 'UTC')";
+
+    private static final String ITEM_SHEETS_SQL = "SELECT " + SHEET_COLUMNS + " FROM \"1scale\".sheet_instance WHERE item_id = ? AND kind = ? " +
+            "ORDER BY " + SORT_AT + " DESC, id DESC";
+
+    @Value("${db.streaming.fetchSize}")
+    private int streamFetchSize;
+
+    private static final TypeReference<Map<String, Object>> VALUES_TYPE = new TypeReference<Map<String, Object>>(){};
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private final LatencyTimer readValuesTimer;
+    private final LatencyTimer writeValuesTimer;
+
+    public SheetDaoJdbc(LatencyMetrics latencyMetrics) {
+        this.readValuesTimer = latencyMetrics.jsonTimer("SheetDaoJdbc.readValues");
+        this.writeValuesTimer = latencyMetrics.jsonTimer("SheetDaoJdbc.writeValues");
+    }
+
     @Override
     public SheetDTO createSheet(CreateSheetRequestDTO request) {
         final String sql = "INSERT INTO \"1scale\".sheet_instance(item_id, template_id, created_at, sheet_date, parent_sheet_id, output_template_id, kind, values_json) " +
-                "VALUES (?, ?, NOW(), ?, ?, ?, ?, ?::jsonb)";
+                "VALUES (?, ?, NOW(), ?, ?, ?, ?, ?::jsonb) " +
+                "RETURNING " + SHEET_COLUMNS;
 
         String kind = request.parentSheetId == null ? "INPUT" : "OUTPUT";
-        String valuesJson;
-        try {
-            valuesJson = objectMapper.writeValueAsString(request.values == null ? Collections.emptyMap() : request.values);
-        } catch (Exception e) {
-            throw new RuntimeException("Could not serialize sheet values.", e);
-        }
+        String valuesJson = writeValues(request.values);
 
-        KeyHolder kh = new GeneratedKeyHolder();
-        jdbcTemplate.update(conn -> {
-            PreparedStatement ps = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
+        List<SheetDTO> rows = jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement(sql);
             int i = 1;
             ps.setInt(i++, request.itemId);
             ps.setInt(i++, request.templateId);
@@ -67,73 +104,267 @@ public class SheetDaoJdbc implements SheetDao {
             ps.setString(i++, kind);
             ps.setString(i, valuesJson);
             return ps;
-        }, kh);
+        }, (rs, i) -> mapSheet(rs));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public List<SheetDTO> createSheets(List<CreateSheetRequestDTO> requests) {
+        // Ids are drawn up front so every request row can be matched to its RETURNING row; rows skipped
+        // by the partial unique index (one OUTPUT per input and output template) come back as NULL.
+        final String sql = "WITH input AS (" +
+                "SELECT t.*, nextval(pg_get_serial_sequence('\"1scale\".sheet_instance', 'id')) AS new_id " +
+                "FROM unnest(?::integer[], ?::integer[], ?::date[], ?::integer[], ?::integer[], ?::text[], ?::text[]) WITH ORDINALITY " +
+                "AS t(item_id, template_id, sheet_date, parent_sheet_id, output_template_id, kind, values_json, ord)), " +
+                "ins AS (INSERT INTO \"1scale\".sheet_instance(id, item_id, template_id, created_at, sheet_date, parent_sheet_id, output_template_id, kind, values_json) " +
+                "SELECT new_id, item_id, template_id, NOW(), sheet_date, parent_sheet_id, output_template_id, kind, values_json::jsonb FROM input ORDER BY ord " +
+                "ON CONFLICT (parent_sheet_id, output_template_id) WHERE parent_sheet_id IS NOT NULL DO NOTHING " +
+                "RETURNING " + SHEET_COLUMNS + ") " +
+                "SELECT input.ord, ins.* FROM input LEFT JOIN ins ON ins.id = input.new_id ORDER BY input.ord";
+
+        List<SheetDTO> result = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += BATCH_CHUNK_SIZE) {
+            List<CreateSheetRequestDTO> chunk = requests.subList(from, Math.min(from + BATCH_CHUNK_SIZE, requests.size()));
+            int n = chunk.size();
+            Integer[] itemIds = new Integer[n];
+            Integer[] templateIds = new Integer[n];
+            String[] sheetDates = new String[n];
+            Integer[] parentIds = new Integer[n];
+            Integer[] outputTemplateIds = new Integer[n];
+            String[] kinds = new String[n];
+            String[] values = new String[n];
+            for (int i = 0; i < n; i++) {
+                CreateSheetRequestDTO r = chunk.get(i);
+                itemIds[i] = r.itemId;
+                templateIds[i] = r.templateId;
+                sheetDates[i] = r.sheetDate == null || r.sheetDate.trim().isEmpty() ? null : r.sheetDate.trim();
+                parentIds[i] = r.parentSheetId;
+                outputTemplateIds[i] = r.outputTemplateId;
+                kinds[i] = r.parentSheetId == null ? "INPUT" : "OUTPUT";
+                values[i] = writeValues(r.values);
+            }
 
-        Integer id = kh.getKey() == null ? null : kh.getKey().intValue();
-        return mapSheetById(id);
+            result.addAll(jdbcTemplate.query(conn -> {
+                PreparedStatement ps = conn.prepareStatement(sql);
+                ps.setArray(1, conn.createArrayOf("integer", itemIds));
+                ps.setArray(2, conn.createArrayOf("integer", templateIds));
+                ps.setArray(3, conn.createArrayOf("text", sheetDates));
+                ps.setArray(4, conn.createArrayOf("integer", parentIds));
+                ps.setArray(5, conn.createArrayOf("integer", outputTemplateIds));
+                ps.setArray(6, conn.createArrayOf("text", kinds));
+                ps.setArray(7, conn.createArrayOf("text", values));
+                return ps;
+            }, (rs, i) -> rs.getObject("id") == null ? null : mapSheet(rs)));
+        }
+        return result;
     }
 
     @Override
     public List<SheetDTO> listItemSheets(Integer itemId, String kind) {
-        final String sql = "SELECT id, item_id, template_id, created_at::text AS created_at, sheet_date::text AS sheet_date, parent_sheet_id, output_template_id, kind " +
-                "FROM \"1scale\".sheet_instance WHERE item_id = ? AND kind = ? ORDER BY COALESCE(sheet_date, created_at) DESC, id DESC";
-        return jdbcTemplate.query(sql, new Object[]{itemId, kind}, (rs, i) -> {
-            SheetDTO dto = new SheetDTO();
-            dto.id = rs.getInt("id");
-            dto.itemId = rs.getInt("item_id");
-            dto.templateId = rs.getInt("template_id");
-            dto.createdAt = rs.getString("created_at");
-            dto.sheetDate = rs.getString("sheet_date");
-            dto.parentSheetId = (Integer) rs.getObject("parent_sheet_id");
-            dto.outputTemplateId = (Integer) rs.getObject("output_template_id");
-            dto.kind = rs.getString("kind");
-            return dto;
-        });
+        return jdbcTemplate.query(ITEM_SHEETS_SQL, new Object[]{itemId, kind}, (rs, i) -> mapSheet(rs));
+    }
+
+    @Override
+    public void streamItemSheets(Integer itemId, String kind, Consumer<SheetDTO> consumer) {
+        jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement(ITEM_SHEETS_SQL);
+            ps.setFetchSize(streamFetchSize);
+            ps.setInt(1, itemId);
+            ps.setString(2, kind);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapSheet(rs)));
     }
 
     @Override
     public List<SheetDTO> listInputOutputs(Integer inputSheetId) {
-        final String sql = "SELECT id, item_id, template_id, created_at::text AS created_at, sheet_date::text AS sheet_date, parent_sheet_id, output_template_id, kind " +
-                "FROM \"1scale\".sheet_instance WHERE parent_sheet_id = ? AND kind = 'OUTPUT' ORDER BY COALESCE(sheet_date, created_at) DESC, id DESC";
-        return jdbcTemplate.query(sql, new Object[]{inputSheetId}, (rs, i) -> {
-            SheetDTO dto = new SheetDTO();
-            dto.id = rs.getInt("id");
-            dto.itemId = rs.getInt("item_id");
-            dto.templateId = rs.getInt("template_id");
-            dto.createdAt = rs.getString("created_at");
-            dto.sheetDate = rs.getString("sheet_date");
-            dto.parentSheetId = (Integer) rs.getObject("parent_sheet_id");
-            dto.outputTemplateId = (Integer) rs.getObject("output_template_id");
-            dto.kind = rs.getString("kind");
-            return dto;
+        final String sql = "SELECT " + SHEET_COLUMNS + " FROM \"1scale\".sheet_instance WHERE parent_sheet_id = ? AND kind = 'OUTPUT' " +
+                "ORDER BY " + SORT_AT + " DESC, id DESC";
+        return jdbcTemplate.query(sql, new Object[]{inputSheetId}, (rs, i) -> mapSheet(rs));
+    }
+
+    @Override
+    public SheetPageDTO searchSheets(SheetSearchRequestDTO request, List<Integer> templateIds, List<List<Integer>> predicateFieldIds) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(SHEET_COLUMNS).append(" FROM \"1scale\".sheet_instance WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        if (request.itemId != null) {
+            sql.append(" AND item_id = ?");
+            args.add(request.itemId);
+        }
+        sql.append(" AND template_id IN (");
+        for (int i = 0; i < templateIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(templateIds.get(i));
+        }
+        sql.append(")");
+        if (request.kind != null && !request.kind.trim().isEmpty()) {
+            sql.append(" AND kind = ?");
+            args.add(request.kind.trim());
+        }
+        SheetValueQuery.append(request.predicates, predicateFieldIds, objectMapper, sql, args);
+        String[] after = KeysetCursor.decode(request.cursor, 1);
+        if (after != null) {
+            sql.append(" AND id < ?");
+            args.add(parseCursorId(after[0]));
+        }
+
+        int pageSize = KeysetCursor.clampLimit(request.limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        sql.append(" ORDER BY id DESC LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<SheetDTO> rows = jdbcTemplate.query(sql.toString(), args.toArray(), (rs, i) -> mapSheet(rs));
+
+        SheetPageDTO page = new SheetPageDTO();
+        if (rows.size() > pageSize) {
+            page.sheets = new ArrayList<>(rows.subList(0, pageSize));
+            page.nextCursor = KeysetCursor.encode(String.valueOf(page.sheets.get(pageSize - 1).id));
+        } else {
+            page.sheets = rows;
+        }
+        return page;
+    }
+
+    @Override
+    public Map<Integer, List<SheetDTO>> listOutputsByInput(List<Integer> inputSheetIds) {
+        Map<Integer, List<SheetDTO>> result = new HashMap<>();
+        if (inputSheetIds.isEmpty()) {
+            return result;
+        }
+        final String sql = "SELECT " + SHEET_COLUMNS + " FROM \"1scale\".sheet_instance WHERE parent_sheet_id = ANY(?) AND kind = 'OUTPUT' " +
+                "ORDER BY parent_sheet_id, " + SORT_AT + " DESC, id DESC";
+        jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ps.setArray(1, conn.createArrayOf("integer", inputSheetIds.toArray(new Integer[0])));
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            SheetDTO dto = mapSheet(rs);
+            result.computeIfAbsent(dto.parentSheetId, k -> new ArrayList<>()).add(dto);
+        });
+        return result;
+    }
+
+    @Override
+    public SheetPageDTO findSheetPage(SheetPageRequestDTO request) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(SHEET_COLUMNS).append(", ").append(SORT_AT).append("::text AS sort_at FROM \"1scale\".sheet_instance WHERE ");
+        List<Object> args = new ArrayList<>();
+        if (request.parentSheetId != null) {
+            sql.append("parent_sheet_id = ? AND kind = 'OUTPUT'");
+            args.add(request.parentSheetId);
+        } else {
+            sql.append("item_id = ? AND kind = ?");
+            args.add(request.itemId);
+            args.add(request.kind);
+        }
+        if (request.templateId != null) {
+            sql.append(" AND template_id = ?");
+            args.add(request.templateId);
+        }
+        if (request.from != null && !request.from.trim().isEmpty()) {
+            sql.append(" AND ").append(SORT_AT).append(" >= CAST(? AS date)");
+            args.add(java.sql.Date.valueOf(request.from.trim()));
+        }
+        if (request.to != null && !request.to.trim().isEmpty()) {
+            sql.append(" AND ").append(SORT_AT).append(" < CAST(? AS date) + 1");
+            args.add(java.sql.Date.valueOf(request.to.trim()));
+        }
+        String[] after = KeysetCursor.decode(request.cursor, 2);
+        if (after != null) {
+            sql.append(" AND (").append(SORT_AT).append(", id) < (CAST(? AS timestamp), ?)");
+            args.add(after[0]);
+            args.add(parseCursorId(after[1]));
+        }
+
+        int pageSize = KeysetCursor.clampLimit(request.limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        sql.append(" ORDER BY ").append(SORT_AT).append(" DESC, id DESC LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<String> sortKeys = new ArrayList<>();
+        List<SheetDTO> rows = jdbcTemplate.query(sql.toString(), args.toArray(), (rs, i) -> {
+            sortKeys.add(rs.getString("sort_at"));
+            return mapSheet(rs);
         });
+
+        SheetPageDTO page = new SheetPageDTO();
+        if (rows.size() > pageSize) {
+            page.sheets = new ArrayList<>(rows.subList(0, pageSize));
+            SheetDTO last = page.sheets.get(pageSize - 1);
+            page.nextCursor = KeysetCursor.encode(sortKeys.get(pageSize - 1), String.valueOf(last.id));
+        } else {
+            page.sheets = rows;
+        }
+        return page;
     }
 
     @Override
     public SheetDetailDTO getSheet(Integer sheetId) {
-        final String sql = "SELECT id, item_id, template_id, created_at::text AS created_at, sheet_date::text AS sheet_date, parent_sheet_id, output_template_id, kind, values_json::text AS values_json " +
-                "FROM \"1scale\".sheet_instance WHERE id = ?";
+        List<SheetDetailDTO> rows = jdbcTemplate.query(GET_SHEET_SQL, new Object[]{sheetId}, (rs, i) -> {
+            SheetDetailDTO detail = new SheetDetailDTO();
+            detail.sheet = mapSheet(rs);
+            detail.values = readValues(rs.getString("values_json"), detail.values);
+            return detail;
+        });
+
+        if (rows.isEmpty()) {
+            return null;
+        }
+        return rows.get(0);
+    }
 
-        List<SheetDetailDTO> rows = jdbcTemplate.query(sql, new Object[]{sheetId}, (rs, i) -> {
+    @Override
+    public Map<Integer, SheetDetailDTO> getSheets(List<Integer> sheetIds) {
+        Map<Integer, SheetDetailDTO> result = new HashMap<>();
+        if (sheetIds.isEmpty()) {
+            return result;
+        }
+        final String sql = "SELECT " + SHEET_COLUMNS + ", values_json::text AS values_json FROM \"1scale\".sheet_instance WHERE id = ANY(?)";
+        jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ps.setArray(1, conn.createArrayOf("integer", sheetIds.toArray(new Integer[0])));
+            return ps;
+        }, (RowCallbackHandler) rs -> {
             SheetDetailDTO detail = new SheetDetailDTO();
-            SheetDTO dto = new SheetDTO();
-            dto.id = rs.getInt("id");
-            dto.itemId = rs.getInt("item_id");
-            dto.templateId = rs.getInt("template_id");
-            dto.createdAt = rs.getString("created_at");
-            dto.sheetDate = rs.getString("sheet_date");
-            dto.parentSheetId = (Integer) rs.getObject("parent_sheet_id");
-            dto.outputTemplateId = (Integer) rs.getObject("output_template_id");
-            dto.kind = rs.getString("kind");
-            detail.sheet = dto;
-
-            try {
-                String valuesText = rs.getString("values_json");
-                if (valuesText != null) {
-                    detail.values = objectMapper.readValue(valuesText, new TypeReference<Map<String, Object>>(){});
-                }
-            } catch (Exception ex) {
-                throw new RuntimeException("Could not deserialize values_json", ex);
+            detail.sheet = mapSheet(rs);
+            detail.values = readValues(rs.getString("values_json"), detail.values);
+            result.put(detail.sheet.id, detail);
+        });
+        return result;
+    }
+
+    @Override
+    public void streamOutputsWithInputs(Integer outputTemplateId, BiConsumer<SheetDetailDTO, SheetDetailDTO> consumer) {
+        final String sql = "SELECT o.id, o.values_json::text AS values_json, i.id AS input_id, i.template_id AS input_template_id, " +
+                "i.values_json::text AS input_values_json " +
+                "FROM \"1scale\".sheet_instance o JOIN \"1scale\".sheet_instance i ON i.id = o.parent_sheet_id " +
+                "WHERE o.template_id = ? AND o.kind = 'OUTPUT' ORDER BY o.id";
+        jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ps.setFetchSize(streamFetchSize);
+            ps.setInt(1, outputTemplateId);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            SheetDetailDTO output = new SheetDetailDTO();
+            output.sheet = new SheetDTO();
+            output.sheet.id = rs.getInt("id");
+            output.sheet.templateId = outputTemplateId;
+            output.sheet.parentSheetId = rs.getInt("input_id");
+            output.values = readValues(rs.getString("values_json"), output.values);
+
+            SheetDetailDTO input = new SheetDetailDTO();
+            input.sheet = new SheetDTO();
+            input.sheet.id = output.sheet.parentSheetId;
+            input.sheet.templateId = rs.getInt("input_template_id");
+            input.values = readValues(rs.getString("input_values_json"), input.values);
+            consumer.accept(output, input);
+        });
+    }
+
+    @Override
+    public SheetRawDetailDTO getSheetRaw(Integer sheetId) {
+        List<SheetRawDetailDTO> rows = jdbcTemplate.query(GET_SHEET_SQL, new Object[]{sheetId}, (rs, i) -> {
+            SheetRawDetailDTO detail = new SheetRawDetailDTO();
+            detail.sheet = mapSheet(rs);
+            String valuesText = rs.getString("values_json");
+            if (valuesText != null) {
+                detail.values = valuesText;
             }
             return detail;
         });
@@ -144,24 +375,49 @@ public class SheetDaoJdbc implements SheetDao {
         return rows.get(0);
     }
 
-    private SheetDTO mapSheetById(Integer id) {
-        if (id == null) {
-            return null;
+    private Integer parseCursorId(String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor.", ex);
+        }
+    }
+
+    private SheetDTO mapSheet(ResultSet rs) throws SQLException {
+        SheetDTO dto = new SheetDTO();
+        dto.id = rs.getInt("id");
+        dto.itemId = rs.getInt("item_id");
+        dto.templateId = rs.getInt("template_id");
+        dto.createdAt = rs.getString("created_at");
+        dto.sheetDate = rs.getString("sheet_date");
+        dto.parentSheetId = (Integer) rs.getObject("parent_sheet_id");
+        dto.outputTemplateId = (Integer) rs.getObject("output_template_id");
+        dto.kind = rs.getString("kind");
+        return dto;
+    }
+
+    private Map<String, Object> readValues(String valuesText, Map<String, Object> fallback) {
+        if (valuesText == null) {
+            return fallback;
+        }
+        long start = System.nanoTime();
+        try {
+            return objectMapper.readValue(valuesText, VALUES_TYPE);
+        } catch (Exception ex) {
+            throw new RuntimeException("Could not deserialize values_json", ex);
+        } finally {
+            readValuesTimer.record(System.nanoTime() - start);
         }
-        final String sql = "SELECT id, item_id, template_id, created_at::text AS created_at, sheet_date::text AS sheet_date, parent_sheet_id, output_template_id, kind FROM \"1scale\".sheet_instance WHERE id = ?";
-        List<SheetDTO> rows = jdbcTemplate.query(sql, new Object[]{id}, (rs, i) -> {
-            SheetDTO dto = new SheetDTO();
-            dto.id = rs.getInt("id");
-            dto.itemId = rs.getInt("item_id");
-            dto.templateId = rs.getInt("template_id");
-            dto.createdAt = rs.getString("created_at");
-            dto.sheetDate = rs.getString("sheet_date");
-            dto.parentSheetId = (Integer) rs.getObject("parent_sheet_id");
-            dto.outputTemplateId = (Integer) rs.getObject("output_template_id");
-            dto.kind = rs.getString("kind");
-            return dto;
-        });
-        return rows.isEmpty() ? null : rows.get(0);
     }
-}
 
+    private String writeValues(Map<String, Object> values) {
+        long start = System.nanoTime();
+        try {
+            return objectMapper.writeValueAsString(values == null ? Collections.emptyMap() : values);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not serialize sheet values.", e);
+        } finally {
+            writeValuesTimer.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.scalebackend.dao.impl;
+
+import com.scalebackend.dao.SheetExportDao;
+import com.scalebackend.dto.request.SheetExportRequestDTO;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+
+// Streams sheets with COPY (...) TO STDOUT: PostgreSQL formats the rows and the driver hands each one to the
+// output stream as it arrives, so memory stays constant whatever the size of the export. COPY takes no bind
+// parameters; ids and dates are inlined after parsing and strings through the driver's literal escaping.
+@Repository
+public class SheetExportDaoJdbc implements SheetExportDao {
+
+    private static final String NDJSON = "ndjson";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String FIELD_JOIN = "LEFT JOIN \"1scale\".field_definition f ON f.template_id = s.template_id " +
+            "AND f.id = CASE WHEN e.key ~ '^[0-9]{1,9}$' THEN e.key::int END";
+
+    private static final String SHEET_JOINS = "JOIN \"1scale\".sheet_template t ON t.id = s.template_id " +
+            "JOIN \"1scale\".item_master im ON im.id = s.item_id";
+
+    // One CSV line per stored value; a sheet without values still gets one line with empty field columns.
+    private static final String CSV_SELECT = "SELECT s.id AS sheet_id, s.kind, s.item_id, im.part_id, im.part_sn, im.bridge_name, " +
+            "s.template_id, t.code AS template_code, t.name AS template_name, t.version AS template_version, " +
+            "s.sheet_date, s.created_at, s.parent_sheet_id, COALESCE(f.key, e.key) AS field_key, f.label AS field_label, " +
+            "COALESCE(f.type, e.value ->> 'type') AS field_type, e.value ->> 'value' AS value, e.value ->> 'unit' AS unit " +
+            "FROM %s s " + SHEET_JOINS + " LEFT JOIN LATERAL jsonb_each(s.values_json) e ON TRUE " + FIELD_JOIN +
+            " ORDER BY s.id, f.order_no, e.key";
+
+    // One JSON document per sheet, values keyed by field key instead of field id.
+    private static final String NDJSON_SELECT = "SELECT jsonb_build_object('sheetId', s.id, 'kind', s.kind, 'itemId', s.item_id, " +
+            "'partId', im.part_id, 'partSn', im.part_sn, 'bridgeName', im.bridge_name, 'templateId', s.template_id, " +
+            "'templateCode', t.code, 'templateName', t.name, 'templateVersion', t.version, 'sheetDate', s.sheet_date, " +
+            "'createdAt', s.created_at, 'parentSheetId', s.parent_sheet_id, 'outputTemplateId', s.output_template_id, " +
+            "'values', COALESCE((SELECT jsonb_object_agg(COALESCE(f.key, e.key), e.value) FROM jsonb_each(s.values_json) e " + FIELD_JOIN + "), '{}'::jsonb))::text " +
+            "FROM %s s " + SHEET_JOINS + " ORDER BY s.id";
+
+    // CSV mode with control characters as quote and delimiter writes each JSON line verbatim: jsonb text never
+    // contains raw control characters or newlines, so nothing is quoted, and unlike TEXT mode nothing is escaped.
+    private static final String NDJSON_OPTIONS = "(FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')";
+    private static final String CSV_OPTIONS = "(FORMAT csv, HEADER true)";
+
+    @Override
+    public long exportSheets(SheetExportRequestDTO request, OutputStream out) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) conn -> {
+            BaseConnection pg = conn.unwrap(BaseConnection.class);
+            String source = sheetSource(request, pg);
+            String sql = NDJSON.equals(request.format)
+                    ? "COPY (" + String.format(NDJSON_SELECT, source) + ") TO STDOUT WITH " + NDJSON_OPTIONS
+                    : "COPY (" + String.format(CSV_SELECT, source) + ") TO STDOUT WITH " + CSV_OPTIONS;
+            try {
+                // On a failed write (client gone) the driver cancels the COPY before rethrowing.
+                return new CopyManager(pg).copyOut(sql, out);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    // The filtered sheet_instance rows; SheetDaoJdbc.SORT_AT is unqualified so it is applied before the joins.
+    private String sheetSource(SheetExportRequestDTO request, BaseConnection pg) throws SQLException {
+        StringBuilder sql = new StringBuilder("(SELECT * FROM \"1scale\".sheet_instance WHERE TRUE");
+        if (request.itemId != null) {
+            sql.append(" AND item_id = ").append(request.itemId.intValue());
+        }
+        if (request.partId != null) {
+            sql.append(" AND item_id IN (SELECT id FROM \"1scale\".item_master WHERE part_id = ").append(literal(pg, request.partId)).append(")");
+        }
+        if (request.templateId != null) {
+            sql.append(" AND template_id = ").append(request.templateId.intValue());
+        }
+        if (request.templateCode != null) {
+            sql.append(" AND template_id IN (SELECT id FROM \"1scale\".sheet_template WHERE code = ").append(literal(pg, request.templateCode)).append(")");
+        }
+        if (request.kind != null) {
+            sql.append(" AND kind = ").append(literal(pg, request.kind));
+        }
+        if (request.from != null) {
+            sql.append(" AND ").append(SheetDaoJdbc.SORT_AT).append(" >= DATE ").append(literal(pg, java.sql.Date.valueOf(request.from).toString()));
+        }
+        if (request.to != null) {
+            sql.append(" AND ").append(SheetDaoJdbc.SORT_AT).append(" < DATE ").append(literal(pg, java.sql.Date.valueOf(request.to).toString())).append(" + 1");
+        }
+        return sql.append(")").toString();
+    }
+
+    private static String literal(BaseConnection pg, String value) throws SQLException {
+        return "'" + pg.escapeString(value) + "'";
+    }
+}
@@ -0,0 +1,88 @@
+package com.scalebackend.dao.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.dto.request.SheetValuePredicateDTO;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Compiles value predicates against values_json, where each entry is {"<fieldId>": {"type", "value", "unit"}}.
+// A predicate names a field key; the service resolves it to the field id of every template version that has
+// it, and the alternatives for those ids are ORed. EQ and CONTAINS become @> containment, which both GIN
+// indexes on values_json can answer (one bitmap scan per id); RANGE becomes a jsonpath filter that is only
+// rechecked on the rows the other conditions select.
+final class SheetValueQuery {
+
+    private SheetValueQuery() {
+    }
+
+    static void append(List<SheetValuePredicateDTO> predicates, List<List<Integer>> fieldIds, ObjectMapper objectMapper,
+                       StringBuilder sql, List<Object> args) {
+        for (int i = 0; i < predicates.size(); i++) {
+            SheetValuePredicateDTO p = predicates.get(i);
+            String op = p.op == null ? "EQ" : p.op.trim().toUpperCase();
+            if (!"EQ".equals(op) && !"CONTAINS".equals(op) && !"RANGE".equals(op)) {
+                throw new IllegalArgumentException("Unknown predicate op: " + p.op);
+            }
+            sql.append(" AND (");
+            List<Integer> ids = fieldIds.get(i);
+            for (int j = 0; j < ids.size(); j++) {
+                String fieldId = String.valueOf(ids.get(j));
+                sql.append(j == 0 ? "" : " OR ");
+                switch (op) {
+                    case "EQ":
+                        if (p.value instanceof Map || p.value instanceof List) {
+                            // @> only checks that the stored value includes the given one
+                            sql.append("(values_json @> CAST(? AS jsonb) AND values_json -> CAST(? AS text) -> 'value' = CAST(? AS jsonb))");
+                            args.add(containment(p, fieldId, objectMapper));
+                            args.add(fieldId);
+                            args.add(write(p.value, objectMapper));
+                        } else {
+                            sql.append("values_json @> CAST(? AS jsonb)");
+                            args.add(containment(p, fieldId, objectMapper));
+                        }
+                        break;
+                    case "CONTAINS":
+                        sql.append("values_json @> CAST(? AS jsonb)");
+                        args.add(containment(p, fieldId, objectMapper));
+                        break;
+                    default:
+                        sql.append("values_json @? CAST(? AS jsonpath)");
+                        args.add(rangePath(p, fieldId));
+                }
+            }
+            sql.append(")");
+        }
+    }
+
+    private static String containment(SheetValuePredicateDTO p, String fieldId, ObjectMapper objectMapper) {
+        if (p.value == null) {
+            throw new IllegalArgumentException("Predicate value is required for field " + p.fieldKey + ".");
+        }
+        return write(Collections.singletonMap(fieldId, Collections.singletonMap("value", p.value)), objectMapper);
+    }
+
+    private static String rangePath(SheetValuePredicateDTO p, String fieldId) {
+        if (p.min == null && p.max == null) {
+            throw new IllegalArgumentException("RANGE predicate needs min or max for field " + p.fieldKey + ".");
+        }
+        StringBuilder path = new StringBuilder("$.\"").append(fieldId).append("\".value.double() ? (");
+        if (p.min != null) {
+            path.append("@ >= ").append(p.min.toPlainString());
+        }
+        if (p.max != null) {
+            path.append(p.min != null ? " && " : "").append("@ <= ").append(p.max.toPlainString());
+        }
+        return path.append(")").toString();
+    }
+
+    private static String write(Object value, ObjectMapper objectMapper) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Invalid predicate value.", ex);
+        }
+    }
+}
@@ -2,18 +2,23 @@ package com.scalebackend.dao.impl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.scalebackend.dao.TemplateDao;
 import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.TableSchemaDTO;
 import com.scalebackend.dto.TemplateDTO;
 import com.scalebackend.dto.request.CreateTemplateVersionRequestDTO;
 import com.scalebackend.dto.request.SaveFieldsVersionRequestDTO;
+import com.scalebackend.metrics.LatencyMetrics;
+import com.scalebackend.metrics.LatencyTimer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.Collections;
 import java.util.List;
 
@@ -23,7 +28,36 @@ public class TemplateDaoJdbc implements TemplateDao {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    // Versions are handed out by a per-code counter row: the upsert row lock serializes editors of the same
+    // code only, and GREATEST() keeps the counter ahead of versions inserted without it.
+    private static final String NEXT_VERSION_CTE = "v AS (INSERT INTO \"1scale\".sheet_template_version_counter AS c(code, last_version) " +
+            "SELECT src.code, COALESCE((SELECT MAX(s.version) FROM \"1scale\".sheet_template s WHERE s.code = src.code), 0) + 1 FROM src " +
+            "ON CONFLICT (code) DO UPDATE SET last_version = GREATEST(c.last_version + 1, EXCLUDED.last_version) " +
+            "RETURNING code, last_version)";
+
+    private static final String INSERT_TEMPLATE_CTE = "t AS (INSERT INTO \"1scale\".sheet_template(code, name, kind, version) " +
+            "SELECT src.code, src.name, src.kind, v.last_version FROM src JOIN v ON v.code = src.code " +
+            "RETURNING id, code, name, kind, version)";
+
+    private static final String EMPTY_JSON_LIST = "[]";
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader stringListReader = objectMapper.readerFor(new TypeReference<List<String>>(){});
+    private final ObjectWriter stringListWriter = objectMapper.writerFor(new TypeReference<List<String>>(){});
+    private final ObjectReader tableSchemaReader = objectMapper.readerFor(TableSchemaDTO.class);
+    private final ObjectWriter tableSchemaWriter = objectMapper.writerFor(TableSchemaDTO.class);
+
+    private final LatencyTimer readTableSchemaTimer;
+    private final LatencyTimer readStringListTimer;
+    private final LatencyTimer writeStringListTimer;
+    private final LatencyTimer writeTableSchemaTimer;
+
+    public TemplateDaoJdbc(LatencyMetrics latencyMetrics) {
+        this.readTableSchemaTimer = latencyMetrics.jsonTimer("TemplateDaoJdbc.readTableSchema");
+        this.readStringListTimer = latencyMetrics.jsonTimer("TemplateDaoJdbc.readStringList");
+        this.writeStringListTimer = latencyMetrics.jsonTimer("TemplateDaoJdbc.writeStringList");
+        this.writeTableSchemaTimer = latencyMetrics.jsonTimer("TemplateDaoJdbc.writeTableSchema");
+    }
 
     @Override
     public List<TemplateDTO> listTemplates(String kind) {
@@ -40,7 +74,7 @@ public class TemplateDaoJdbc implements TemplateDao {
     @Override
     public List<FieldDefinitionDTO> listTemplateFields(Integer templateId) {
         final String sql = "SELECT id, template_id, key, label, type, required, order_no, group_key, is_multi, multi_keys_json::text AS multi_keys_json, " +
-                "unit_mode, unit_options_json::text AS unit_options_json, dropdown_options_json::text AS dropdown_options_json, table_schema_json::text AS table_schema_json " +
+                "unit_mode, unit_options_json::text AS unit_options_json, dropdown_options_json::text AS dropdown_options_json, table_schema_json::text AS table_schema_json, formula " +
                 "FROM \"1scale\".field_definition WHERE template_id = ? ORDER BY order_no";
 
         return jdbcTemplate.query(sql, new Object[]{templateId}, (rs, i) -> {
@@ -55,6 +89,7 @@ public class TemplateDaoJdbc implements TemplateDao {
             dto.groupKey = rs.getString("group_key");
             dto.isMulti = rs.getBoolean("is_multi");
             dto.unitMode = rs.getString("unit_mode");
+            dto.formula = rs.getString("formula");
 
             dto.multiKeys = readStringList(rs.getString("multi_keys_json"));
             dto.unitOptions = readStringList(rs.getString("unit_options_json"));
@@ -62,10 +97,13 @@ public class TemplateDaoJdbc implements TemplateDao {
 
             String tableSchemaJson = rs.getString("table_schema_json");
             if (tableSchemaJson != null && !tableSchemaJson.trim().isEmpty()) {
+                long start = System.nanoTime();
                 try {
-                    dto.tableSchema = objectMapper.readValue(tableSchemaJson, com.scalebackend.dto.TableSchemaDTO.class);
+                    dto.tableSchema = tableSchemaReader.readValue(tableSchemaJson);
                 } catch (Exception ex) {
                     throw new RuntimeException("Could not parse table_schema_json", ex);
+                } finally {
+                    readTableSchemaTimer.record(System.nanoTime() - start);
                 }
             }
             return dto;
@@ -74,77 +112,79 @@ public class TemplateDaoJdbc implements TemplateDao {
 
     @Override
     public TemplateDTO createTemplateVersion(CreateTemplateVersionRequestDTO request) {
-        Integer nextVersion = jdbcTemplate.queryForObject(
-                "SELECT COALESCE(MAX(version), 0) + 1 FROM \"1scale\".sheet_template WHERE code = ?",
-                Integer.class,
-                request.code
-        );
-
-        final String sql = "INSERT INTO \"1scale\".sheet_template(code, name, kind, version) VALUES (?, ?, ?, ?)";
-        KeyHolder kh = new GeneratedKeyHolder();
-
-        jdbcTemplate.update(conn -> {
-            PreparedStatement ps = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
-            ps.setString(1, request.code);
-            ps.setString(2, request.name);
-            ps.setString(3, request.kind);
-            ps.setInt(4, nextVersion == null ? 1 : nextVersion);
-            return ps;
-        }, kh);
-
-        Integer newId = kh.getKey() == null ? null : kh.getKey().intValue();
-
-        if (request.baseTemplateId != null && newId != null) {
-            String copySql = "INSERT INTO \"1scale\".field_definition(template_id, key, label, type, required, order_no, group_key, is_multi, multi_keys_json, unit_mode, unit_options_json, dropdown_options_json, table_schema_json) " +
-                    "SELECT ?, key, label, type, required, order_no, group_key, is_multi, multi_keys_json, unit_mode, unit_options_json, dropdown_options_json, table_schema_json " +
-                    "FROM \"1scale\".field_definition WHERE template_id = ?";
-            jdbcTemplate.update(copySql, newId, request.baseTemplateId);
+        final String src = "src AS (SELECT ?::varchar AS code, ?::varchar AS name, ?::varchar AS kind)";
+
+        if (request.baseTemplateId == null) {
+            final String sql = "WITH " + src + ", " + NEXT_VERSION_CTE + ", " + INSERT_TEMPLATE_CTE + " SELECT id, code, name, kind, version FROM t";
+            return findOne(sql, request.code, request.name, request.kind);
         }
 
-        return findTemplateById(newId);
+        final String sql = "WITH " + src + ", " + NEXT_VERSION_CTE + ", " + INSERT_TEMPLATE_CTE + ", " +
+                "f AS (INSERT INTO \"1scale\".field_definition(template_id, key, label, type, required, order_no, group_key, is_multi, multi_keys_json, unit_mode, unit_options_json, dropdown_options_json, table_schema_json, formula) " +
+                "SELECT t.id, fd.key, fd.label, fd.type, fd.required, fd.order_no, fd.group_key, fd.is_multi, fd.multi_keys_json, fd.unit_mode, fd.unit_options_json, fd.dropdown_options_json, fd.table_schema_json, fd.formula " +
+                "FROM t CROSS JOIN \"1scale\".field_definition fd WHERE fd.template_id = ?) " +
+                "SELECT id, code, name, kind, version FROM t";
+        return findOne(sql, request.code, request.name, request.kind, request.baseTemplateId);
     }
 
     @Override
     public TemplateDTO saveFieldsAsNewVersion(SaveFieldsVersionRequestDTO request) {
-        TemplateDTO current = jdbcTemplate.queryForObject(
-                "SELECT id, code, name, kind, version FROM \"1scale\".sheet_template WHERE id = ?",
-                (rs, i) -> mapTemplate(rs),
-                request.templateId
-        );
-
-        CreateTemplateVersionRequestDTO versionReq = new CreateTemplateVersionRequestDTO();
-        versionReq.baseTemplateId = null;
-        versionReq.code = current.code;
-        versionReq.name = current.name;
-        versionReq.kind = current.kind;
-
-        TemplateDTO created = createTemplateVersion(versionReq);
-
-        final String insertFieldSql = "INSERT INTO \"1scale\".field_definition(template_id, key, label, type, required, order_no, group_key, is_multi, multi_keys_json, unit_mode, unit_options_json, dropdown_options_json, table_schema_json) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?::jsonb, ?::jsonb, ?::jsonb)";
-
-        for (int i = 0; i < request.fields.size(); i++) {
-            FieldDefinitionDTO f = request.fields.get(i);
-            jdbcTemplate.update(insertFieldSql,
-                    created.id,
-                    f.key,
-                    f.label,
-                    f.type,
-                    Boolean.TRUE.equals(f.required),
-                    (i + 1) * 10,
-                    f.groupKey,
-                    Boolean.TRUE.equals(f.isMulti),
-                    writeJson(f.multiKeys),
-                    f.unitMode,
-                    writeJson(f.unitOptions),
-                    writeJson(f.dropdownOptions),
-                    writeJson(f.tableSchema)
-            );
+        final String sql = "WITH src AS (SELECT code, name, kind FROM \"1scale\".sheet_template WHERE id = ?), " +
+                NEXT_VERSION_CTE + ", " + INSERT_TEMPLATE_CTE + " SELECT id, code, name, kind, version FROM t";
+
+        TemplateDTO created = findOne(sql, request.templateId);
+        if (created == null) {
+            throw new IllegalArgumentException("Template " + request.templateId + " does not exist.");
+        }
+
+        final String insertFieldSql = "INSERT INTO \"1scale\".field_definition(template_id, key, label, type, required, order_no, group_key, is_multi, multi_keys_json, unit_mode, unit_options_json, dropdown_options_json, table_schema_json, formula) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?::jsonb, ?::jsonb, ?::jsonb, ?)";
+
+        final List<FieldDefinitionDTO> fields = request.fields == null ? Collections.<FieldDefinitionDTO>emptyList() : request.fields;
+        if (fields.isEmpty()) {
+            return created;
+        }
+
+        final String[][] json = new String[fields.size()][];
+        for (int i = 0; i < fields.size(); i++) {
+            FieldDefinitionDTO f = fields.get(i);
+            json[i] = new String[]{writeStringList(f.multiKeys), writeStringList(f.unitOptions), writeStringList(f.dropdownOptions), writeTableSchema(f.tableSchema)};
         }
 
+        jdbcTemplate.batchUpdate(insertFieldSql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                FieldDefinitionDTO f = fields.get(i);
+                ps.setInt(1, created.id);
+                ps.setString(2, f.key);
+                ps.setString(3, f.label);
+                ps.setString(4, f.type);
+                ps.setBoolean(5, Boolean.TRUE.equals(f.required));
+                ps.setInt(6, (i + 1) * 10);
+                ps.setString(7, f.groupKey);
+                ps.setBoolean(8, Boolean.TRUE.equals(f.isMulti));
+                ps.setString(9, json[i][0]);
+                ps.setString(10, f.unitMode);
+                ps.setString(11, json[i][1]);
+                ps.setString(12, json[i][2]);
+                ps.setString(13, json[i][3]);
+                ps.setString(14, f.formula == null || f.formula.trim().isEmpty() ? null : f.formula.trim());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return fields.size();
+            }
+        });
+
         return created;
     }
 
+    private TemplateDTO findOne(String sql, Object... args) {
+        List<TemplateDTO> rows = jdbcTemplate.query(sql, args, (rs, i) -> mapTemplate(rs));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
     private TemplateDTO mapTemplate(java.sql.ResultSet rs) throws java.sql.SQLException {
         TemplateDTO t = new TemplateDTO();
         t.id = rs.getInt("id");
@@ -155,33 +195,42 @@ public class TemplateDaoJdbc implements TemplateDao {
         return t;
     }
 
-    private TemplateDTO findTemplateById(Integer id) {
-        if (id == null) return null;
-        List<TemplateDTO> list = jdbcTemplate.query(
-                "SELECT id, code, name, kind, version FROM \"1scale\".sheet_template WHERE id = ?",
-                new Object[]{id},
-                (rs, i) -> mapTemplate(rs)
-        );
-        return list.isEmpty() ? null : list.get(0);
-    }
-
     private List<String> readStringList(String json) {
         if (json == null || json.trim().isEmpty()) {
             return Collections.emptyList();
         }
+        long start = System.nanoTime();
         try {
-            return objectMapper.readValue(json, new TypeReference<List<String>>(){});
+            return stringListReader.readValue(json);
         } catch (Exception e) {
             throw new RuntimeException("Could not parse json list", e);
+        } finally {
+            readStringListTimer.record(System.nanoTime() - start);
         }
     }
 
-    private String writeJson(Object o) {
+    private String writeStringList(List<String> list) {
+        long start = System.nanoTime();
         try {
-            return objectMapper.writeValueAsString(o == null ? Collections.emptyList() : o);
+            return stringListWriter.writeValueAsString(list == null ? Collections.emptyList() : list);
         } catch (Exception e) {
             throw new RuntimeException("Could not serialize object to json", e);
+        } finally {
+            writeStringListTimer.record(System.nanoTime() - start);
         }
     }
-}
 
+    private String writeTableSchema(TableSchemaDTO tableSchema) {
+        if (tableSchema == null) {
+            return EMPTY_JSON_LIST;
+        }
+        long start = System.nanoTime();
+        try {
+            return tableSchemaWriter.writeValueAsString(tableSchema);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not serialize object to json", e);
+        } finally {
+            writeTableSchemaTimer.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -4,8 +4,6 @@ import com.scalebackend.dao.TypeDao;
 import com.scalebackend.dto.TypeDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import java.sql.PreparedStatement;
@@ -18,11 +16,10 @@ public class TypeDaoJdbc implements TypeDao {
 
     @Override
     public TypeDTO insert(TypeDTO dto) {
-        final String sql = "INSERT INTO \"1scale\".type(name, is_active) VALUES (?, COALESCE(?, TRUE))";
-        KeyHolder kh = new GeneratedKeyHolder();
+        final String sql = "INSERT INTO \"1scale\".type(name, is_active) VALUES (?, COALESCE(?, TRUE)) RETURNING id, name, is_active";
 
-        jdbcTemplate.update(conn -> {
-            PreparedStatement ps = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
+        return jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement(sql);
             ps.setString(1, dto.name == null ? null : dto.name.trim());
             if (dto.active == null) {
                 ps.setNull(2, java.sql.Types.BOOLEAN);
@@ -30,15 +27,12 @@ public class TypeDaoJdbc implements TypeDao {
                 ps.setBoolean(2, dto.active);
             }
             return ps;
-        }, kh);
-
-        if (kh.getKey() != null) {
-            dto.id = kh.getKey().intValue();
-        }
-        if (dto.active == null) {
-            dto.active = true;
-        }
-        return dto;
+        }, (rs, i) -> {
+            TypeDTO created = new TypeDTO();
+            created.id = rs.getInt("id");
+            created.name = rs.getString("name");
+            created.active = rs.getBoolean("is_active");
+            return created;
+        }).get(0);
     }
 }
-
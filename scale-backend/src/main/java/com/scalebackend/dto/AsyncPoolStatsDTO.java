@@ -0,0 +1,14 @@
+package com.scalebackend.dto;
+
+public class AsyncPoolStatsDTO {
+    public String name;
+    public int activeThreads;
+    public int poolSize;
+    public int maxPoolSize;
+    public int queued;
+    public int queueCapacity;
+    public long timeoutMs;
+    public long completed;
+    public long rejected;
+    public long timedOut;
+}
@@ -0,0 +1,11 @@
+package com.scalebackend.dto;
+
+public class CacheStatsDTO {
+    public String name;
+    public int size;
+    public int maxSize;
+    public long hits;
+    public long misses;
+    public long evictions;
+    public double hitRatio;
+}
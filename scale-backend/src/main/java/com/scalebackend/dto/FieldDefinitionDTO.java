@@ -18,4 +18,5 @@ public class FieldDefinitionDTO {
     public List<String> unitOptions = new ArrayList<>();
     public List<String> dropdownOptions = new ArrayList<>();
     public TableSchemaDTO tableSchema;
+    public String formula;
 }
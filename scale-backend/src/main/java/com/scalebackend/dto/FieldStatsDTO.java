@@ -0,0 +1,21 @@
+package com.scalebackend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FieldStatsDTO {
+    public String templateCode;
+    public String fieldKey;
+    public String from;
+    public String to;
+    public long count;
+    public Double min;
+    public Double max;
+    public Double mean;
+    public Double stddev;
+    public Double p50;
+    public Double p90;
+    public Double p95;
+    public Double p99;
+    public List<FieldStatsDayDTO> days = new ArrayList<>();
+}
@@ -0,0 +1,11 @@
+package com.scalebackend.dto;
+
+public class FieldStatsDayDTO {
+    public String day;
+    public long count;
+    public Double min;
+    public Double max;
+    public Double mean;
+    public Double p50;
+    public Double p95;
+}
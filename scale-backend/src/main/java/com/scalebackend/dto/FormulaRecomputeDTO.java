@@ -0,0 +1,16 @@
+package com.scalebackend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FormulaRecomputeDTO {
+    public Integer templateId;
+    public int formulas;
+    public long sheets;
+    public long matching;
+    public long differing;
+    public long missing;
+    public long notComputable;
+    public List<Integer> differingSheetIds = new ArrayList<>();
+    public long elapsedMs;
+}
@@ -1,5 +1,7 @@
 package com.scalebackend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,5 +10,11 @@ public class ItemTreeNodeDTO {
     public String label;
     public String type;
     public Integer itemId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String partId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String partSn;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Integer childCount;
     public List<ItemTreeNodeDTO> children = new ArrayList<>();
 }
@@ -0,0 +1,9 @@
+package com.scalebackend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ItemTreePageDTO {
+    public List<ItemTreeNodeDTO> nodes = new ArrayList<>();
+    public String nextCursor;
+}
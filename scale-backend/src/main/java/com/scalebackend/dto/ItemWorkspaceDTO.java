@@ -0,0 +1,13 @@
+package com.scalebackend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ItemWorkspaceDTO {
+    public ItemDTO item;
+    public TemplatesForPartDTO templatesForPart = new TemplatesForPartDTO();
+    public List<TemplateDTO> inputTemplates = new ArrayList<>();
+    public List<TemplateDTO> outputTemplates = new ArrayList<>();
+    public List<TemplateDTO> templates = new ArrayList<>();
+    public SheetHistoryPageDTO history = new SheetHistoryPageDTO();
+}
@@ -0,0 +1,15 @@
+package com.scalebackend.dto;
+
+public class LimiterStatsDTO {
+    public boolean enabled;
+    public int limit;
+    public int bulkLimit;
+    public int inflight;
+    public int bulkInflight;
+    public double shortRttMs;
+    public double baselineRttMs;
+    public long admittedInteractive;
+    public long admittedBulk;
+    public long rejectedInteractive;
+    public long rejectedBulk;
+}
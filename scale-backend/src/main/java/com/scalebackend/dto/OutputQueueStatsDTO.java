@@ -0,0 +1,12 @@
+package com.scalebackend.dto;
+
+public class OutputQueueStatsDTO {
+    public boolean enabled;
+    public long pending;
+    public long failed;
+    public Long oldestPendingAgeMs;
+    public int activeWorkers;
+    public long processedInputs;
+    public long createdOutputs;
+    public long failures;
+}
@@ -0,0 +1,18 @@
+package com.scalebackend.dto;
+
+public class PoolStatsDTO {
+    public String poolName;
+    public int activeConnections;
+    public int idleConnections;
+    public int totalConnections;
+    public int pendingThreads;
+    public int minConnections;
+    public int maxConnections;
+    public long connectionsAcquired;
+    public double avgWaitMillis;
+    public double maxWaitMillis;
+    public double avgUsageMillis;
+    public long connectionsCreated;
+    public double avgCreateMillis;
+    public long connectionTimeouts;
+}
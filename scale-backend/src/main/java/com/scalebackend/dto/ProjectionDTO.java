@@ -0,0 +1,9 @@
+package com.scalebackend.dto;
+
+public class ProjectionDTO {
+    public String templateCode;
+    public String tableName;
+    public Integer backfillAfterId;
+    public Integer backfillUptoId;
+    public boolean backfilled;
+}
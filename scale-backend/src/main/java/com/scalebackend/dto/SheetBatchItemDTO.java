@@ -0,0 +1,7 @@
+package com.scalebackend.dto;
+
+public class SheetBatchItemDTO {
+    public int index;
+    public String status;
+    public SheetDTO sheet;
+}
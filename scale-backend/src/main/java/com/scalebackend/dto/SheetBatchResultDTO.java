@@ -0,0 +1,10 @@
+package com.scalebackend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SheetBatchResultDTO {
+    public int created;
+    public int conflicts;
+    public List<SheetBatchItemDTO> items = new ArrayList<>();
+}
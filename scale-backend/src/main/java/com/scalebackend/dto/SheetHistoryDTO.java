@@ -0,0 +1,9 @@
+package com.scalebackend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SheetHistoryDTO {
+    public SheetDTO input;
+    public List<SheetDTO> outputs = new ArrayList<>();
+}
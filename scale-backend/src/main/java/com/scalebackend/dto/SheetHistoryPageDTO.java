@@ -0,0 +1,9 @@
+package com.scalebackend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SheetHistoryPageDTO {
+    public List<SheetHistoryDTO> records = new ArrayList<>();
+    public String nextCursor;
+}
@@ -0,0 +1,9 @@
+package com.scalebackend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SheetPageDTO {
+    public List<SheetDTO> sheets = new ArrayList<>();
+    public String nextCursor;
+}
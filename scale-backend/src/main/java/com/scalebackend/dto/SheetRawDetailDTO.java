@@ -0,0 +1,9 @@
+package com.scalebackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+public class SheetRawDetailDTO {
+    public SheetDTO sheet;
+    @JsonRawValue
+    public String values = "{}";
+}
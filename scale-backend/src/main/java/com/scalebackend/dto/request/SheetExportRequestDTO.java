@@ -0,0 +1,12 @@
+package com.scalebackend.dto.request;
+
+public class SheetExportRequestDTO {
+    public String format;
+    public Integer itemId;
+    public String partId;
+    public Integer templateId;
+    public String templateCode;
+    public String kind;
+    public String from;
+    public String to;
+}
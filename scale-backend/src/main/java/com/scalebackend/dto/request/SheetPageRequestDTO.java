@@ -0,0 +1,12 @@
+package com.scalebackend.dto.request;
+
+public class SheetPageRequestDTO {
+    public Integer itemId;
+    public String kind;
+    public Integer parentSheetId;
+    public Integer templateId;
+    public String from;
+    public String to;
+    public String cursor;
+    public Integer limit;
+}
@@ -0,0 +1,14 @@
+package com.scalebackend.dto.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SheetSearchRequestDTO {
+    public Integer itemId;
+    public String templateCode;
+    public Integer templateId;
+    public String kind;
+    public List<SheetValuePredicateDTO> predicates = new ArrayList<>();
+    public String cursor;
+    public Integer limit;
+}
@@ -0,0 +1,11 @@
+package com.scalebackend.dto.request;
+
+import java.math.BigDecimal;
+
+public class SheetValuePredicateDTO {
+    public String fieldKey;
+    public String op;
+    public Object value;
+    public BigDecimal min;
+    public BigDecimal max;
+}
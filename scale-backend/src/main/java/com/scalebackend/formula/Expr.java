@@ -0,0 +1,6 @@
+package com.scalebackend.formula;
+
+// A compiled formula node. Evaluation works on primitives only; missing inputs are NaN and propagate.
+interface Expr {
+    double eval(FormulaContext ctx);
+}
@@ -0,0 +1,88 @@
+package com.scalebackend.formula;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Reusable evaluation buffers: one slot per scalar reference and one growable array per TABLE column
+// reference of a program. Not thread-safe; callers keep one per batch.
+public final class FormulaContext {
+
+    double[] scalars = new double[0];
+    double[][] columns = new double[0][];
+    int[] columnSizes = new int[0];
+
+    void load(FormulaProgram.Binding binding, Map<String, Object> values) {
+        int scalarCount = binding.scalarFieldIds.length;
+        int columnCount = binding.columnFieldIds.length;
+        if (scalars.length < scalarCount) {
+            scalars = new double[scalarCount];
+        }
+        if (columns.length < columnCount) {
+            columns = Arrays.copyOf(columns, columnCount);
+            columnSizes = new int[columnCount];
+        }
+
+        for (int i = 0; i < scalarCount; i++) {
+            Object value = valueOf(values, binding.scalarFieldIds[i]);
+            String subKey = binding.scalarSubKeys[i];
+            if (subKey != null) {
+                value = value instanceof Map ? ((Map<?, ?>) value).get(subKey) : null;
+            }
+            scalars[i] = number(value);
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            Object value = valueOf(values, binding.columnFieldIds[i]);
+            Object rows = value instanceof Map ? ((Map<?, ?>) value).get("rows") : null;
+            int size = 0;
+            if (rows instanceof List) {
+                List<?> list = (List<?>) rows;
+                double[] column = columns[i];
+                if (column == null || column.length < list.size()) {
+                    column = new double[Math.max(list.size(), 16)];
+                    columns[i] = column;
+                }
+                String columnKey = binding.columnKeys[i];
+                for (Object row : list) {
+                    column[size++] = row instanceof Map ? number(((Map<?, ?>) row).get(columnKey)) : Double.NaN;
+                }
+            }
+            columnSizes[i] = size;
+        }
+    }
+
+    private static Object valueOf(Map<String, Object> values, String fieldId) {
+        if (fieldId == null || values == null) {
+            return null;
+        }
+        Object entry = values.get(fieldId);
+        return entry instanceof Map ? ((Map<?, ?>) entry).get("value") : null;
+    }
+
+    static double number(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        if (value instanceof String) {
+            String s = ((String) value).trim();
+            if (!s.isEmpty() && looksNumeric(s)) {
+                try {
+                    return Double.parseDouble(s);
+                } catch (NumberFormatException ignored) {
+                    return Double.NaN;
+                }
+            }
+        }
+        return Double.NaN;
+    }
+
+    // Cheap pre-check so free text cells do not cost an exception each.
+    private static boolean looksNumeric(String s) {
+        char c = s.charAt(0);
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+    }
+}
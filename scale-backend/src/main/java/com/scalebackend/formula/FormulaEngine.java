@@ -0,0 +1,153 @@
+package com.scalebackend.formula;
+
+import com.scalebackend.cache.LruCache;
+import com.scalebackend.cache.TemplateCache;
+import com.scalebackend.dao.SheetDao;
+import com.scalebackend.dto.CacheStatsDTO;
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.FormulaRecomputeDTO;
+import com.scalebackend.dto.SheetDetailDTO;
+import com.scalebackend.dto.request.CreateSheetRequestDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Computes formula fields of OUTPUT sheets from their parent INPUT sheet. Programs are compiled once per
+// output template version; template versions are immutable so they never need to be dropped.
+@Component
+public class FormulaEngine {
+
+    private static final int MAX_DIFFERING_IDS = 100;
+    private static final double TOLERANCE = 1e-9;
+
+    @Autowired
+    private TemplateCache templateCache;
+
+    @Autowired
+    private SheetDao sheetDao;
+
+    private final LruCache<Integer, FormulaProgram> programs;
+
+    public FormulaEngine(@Value("${cache.formulas.maxEntries}") int maxEntries) {
+        this.programs = new LruCache<>("formulas", maxEntries);
+    }
+
+    // Rejects fields whose formulas do not compile, before a template version is saved.
+    public void check(List<FieldDefinitionDTO> fields) {
+        FormulaProgram.compile(fields);
+    }
+
+    // Unknown ids and versions without fields compile to an empty program that is not cached: the id may be
+    // a version that is still being committed, and its formulas must be picked up once it is visible.
+    public FormulaProgram program(Integer templateId) {
+        FormulaProgram program = programs.getIfPresent(templateId);
+        if (program != null) {
+            return program;
+        }
+        if (templateCache.getTemplate(templateId) == null) {
+            return FormulaProgram.compile(Collections.<FieldDefinitionDTO>emptyList());
+        }
+        List<FieldDefinitionDTO> fields = templateCache.getFields(templateId).fields;
+        program = FormulaProgram.compile(fields);
+        if (!fields.isEmpty()) {
+            programs.put(templateId, program);
+        }
+        return program;
+    }
+
+    // Fills formula fields of the OUTPUT requests in place, reading all parent sheets in one query.
+    public void apply(List<CreateSheetRequestDTO> requests) {
+        Set<Integer> parentIds = new LinkedHashSet<>();
+        for (CreateSheetRequestDTO request : requests) {
+            if (request.parentSheetId != null && request.templateId != null && !program(request.templateId).isEmpty()) {
+                parentIds.add(request.parentSheetId);
+            }
+        }
+        if (parentIds.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, SheetDetailDTO> parents = sheetDao.getSheets(new ArrayList<>(parentIds));
+        FormulaContext ctx = new FormulaContext();
+        for (CreateSheetRequestDTO request : requests) {
+            SheetDetailDTO parent = request.parentSheetId == null ? null : parents.get(request.parentSheetId);
+            if (parent != null) {
+                apply(ctx, request, parent.sheet.templateId, parent.values);
+            }
+        }
+    }
+
+    public void apply(CreateSheetRequestDTO request, Integer inputTemplateId, Map<String, Object> inputValues) {
+        apply(new FormulaContext(), request, inputTemplateId, inputValues);
+    }
+
+    private void apply(FormulaContext ctx, CreateSheetRequestDTO request, Integer inputTemplateId, Map<String, Object> inputValues) {
+        FormulaProgram program = program(request.templateId);
+        if (program.isEmpty()) {
+            return;
+        }
+        if (request.values == null) {
+            request.values = new HashMap<>();
+        }
+        program.apply(ctx, program.bind(inputTemplateId, this::fieldsOf), inputValues, request.values);
+    }
+
+    // Re-evaluates the formulas of every OUTPUT sheet of a template version against its input and reports
+    // how many stored values still agree. Sheets are immutable, so nothing is rewritten.
+    public FormulaRecomputeDTO recompute(Integer templateId) {
+        long started = System.nanoTime();
+        FormulaProgram program = program(templateId);
+        FormulaRecomputeDTO result = new FormulaRecomputeDTO();
+        result.templateId = templateId;
+        result.formulas = program.size();
+        if (program.isEmpty()) {
+            return result;
+        }
+
+        FormulaContext ctx = new FormulaContext();
+        sheetDao.streamOutputsWithInputs(templateId, (output, input) -> {
+            result.sheets++;
+            program.load(ctx, program.bind(input.sheet.templateId, this::fieldsOf), input.values);
+            boolean differs = false;
+            for (int i = 0; i < program.size(); i++) {
+                double computed = program.evaluate(i, ctx);
+                if (Double.isNaN(computed) || Double.isInfinite(computed)) {
+                    result.notComputable++;
+                    continue;
+                }
+                Object stored = output.values.get(program.fieldId(i));
+                double storedValue = stored instanceof Map ? FormulaContext.number(((Map<?, ?>) stored).get("value")) : Double.NaN;
+                if (Double.isNaN(storedValue)) {
+                    result.missing++;
+                    differs = true;
+                } else if (Math.abs(computed - storedValue) <= TOLERANCE * Math.max(1, Math.abs(computed))) {
+                    result.matching++;
+                } else {
+                    result.differing++;
+                    differs = true;
+                }
+            }
+            if (differs && result.differingSheetIds.size() < MAX_DIFFERING_IDS) {
+                result.differingSheetIds.add(output.sheet.id);
+            }
+        });
+        result.elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        return result;
+    }
+
+    public CacheStatsDTO stats() {
+        return programs.stats();
+    }
+
+    private List<FieldDefinitionDTO> fieldsOf(Integer templateId) {
+        return templateCache.getFields(templateId).fields;
+    }
+}
@@ -0,0 +1,10 @@
+package com.scalebackend.formula;
+
+public class FormulaException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public FormulaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,467 @@
+package com.scalebackend.formula;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Recursive descent parser turning a formula into a tree of Expr closures. References are resolved to
+// slots of the owning program here, so evaluation never looks anything up by name.
+//
+//   expr    := sum (('<' | '<=' | '>' | '>=' | '==' | '!=') sum)?
+//   sum     := product (('+' | '-') product)*
+//   product := unary (('*' | '/' | '%') unary)*
+//   unary   := '-' unary | power
+//   power   := primary ('^' unary)?
+//   primary := number | ref | name '(' args ')' | '(' expr ')'
+//   ref     := name ('.' name)?        names may be quoted with backticks
+final class FormulaParser {
+
+    static final int MAX_LENGTH = 2000;
+    private static final int MAX_DEPTH = 64;
+
+    private final String text;
+    private final Map<String, Integer> scalarSlots;
+    private final Map<String, Integer> columnSlots;
+    private int pos;
+    private int depth;
+
+    private FormulaParser(String text, Map<String, Integer> scalarSlots, Map<String, Integer> columnSlots) {
+        this.text = text;
+        this.scalarSlots = scalarSlots;
+        this.columnSlots = columnSlots;
+    }
+
+    // Slot maps are keyed "key" / "key.sub" for scalars and "table.column" for columns; new references
+    // are added with the next free slot.
+    static Expr parse(String text, Map<String, Integer> scalarSlots, Map<String, Integer> columnSlots) {
+        if (text.length() > MAX_LENGTH) {
+            throw new FormulaException("formula is longer than " + MAX_LENGTH + " characters");
+        }
+        FormulaParser parser = new FormulaParser(text, scalarSlots, columnSlots);
+        Expr expr = parser.expr();
+        parser.skipSpaces();
+        if (parser.pos < text.length()) {
+            throw parser.error("unexpected '" + text.charAt(parser.pos) + "'");
+        }
+        return expr;
+    }
+
+    private Expr expr() {
+        if (++depth > MAX_DEPTH) {
+            throw error("formula is nested too deeply");
+        }
+        Expr left = sum();
+        Expr result = left;
+        if (accept("<=")) {
+            Expr right = sum();
+            result = fold(c -> compare(left.eval(c), right.eval(c), 0b011), left, right);
+        } else if (accept(">=")) {
+            Expr right = sum();
+            result = fold(c -> compare(left.eval(c), right.eval(c), 0b110), left, right);
+        } else if (accept("==")) {
+            Expr right = sum();
+            result = fold(c -> compare(left.eval(c), right.eval(c), 0b010), left, right);
+        } else if (accept("!=")) {
+            Expr right = sum();
+            result = fold(c -> compare(left.eval(c), right.eval(c), 0b101), left, right);
+        } else if (accept("<")) {
+            Expr right = sum();
+            result = fold(c -> compare(left.eval(c), right.eval(c), 0b001), left, right);
+        } else if (accept(">")) {
+            Expr right = sum();
+            result = fold(c -> compare(left.eval(c), right.eval(c), 0b100), left, right);
+        }
+        depth--;
+        return result;
+    }
+
+    // mask bits: 1 = less, 2 = equal, 4 = greater
+    private static double compare(double a, double b, int mask) {
+        if (Double.isNaN(a) || Double.isNaN(b)) {
+            return Double.NaN;
+        }
+        int bit = a < b ? 1 : a == b ? 2 : 4;
+        return (mask & bit) != 0 ? 1 : 0;
+    }
+
+    private Expr sum() {
+        Expr result = product();
+        while (true) {
+            Expr left = result;
+            if (accept("+")) {
+                Expr right = product();
+                result = fold(c -> left.eval(c) + right.eval(c), left, right);
+            } else if (accept("-")) {
+                Expr right = product();
+                result = fold(c -> left.eval(c) - right.eval(c), left, right);
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private Expr product() {
+        Expr result = unary();
+        while (true) {
+            Expr left = result;
+            if (accept("*")) {
+                Expr right = unary();
+                result = fold(c -> left.eval(c) * right.eval(c), left, right);
+            } else if (accept("/")) {
+                Expr right = unary();
+                result = fold(c -> left.eval(c) / right.eval(c), left, right);
+            } else if (accept("%")) {
+                Expr right = unary();
+                result = fold(c -> left.eval(c) % right.eval(c), left, right);
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private Expr unary() {
+        if (accept("-")) {
+            Expr operand = unary();
+            return fold(c -> -operand.eval(c), operand);
+        }
+        return power();
+    }
+
+    private Expr power() {
+        Expr base = primary();
+        if (accept("^")) {
+            Expr exponent = unary();
+            return fold(c -> Math.pow(base.eval(c), exponent.eval(c)), base, exponent);
+        }
+        return base;
+    }
+
+    private Expr primary() {
+        skipSpaces();
+        if (pos >= text.length()) {
+            throw error("unexpected end of formula");
+        }
+        char ch = text.charAt(pos);
+        if (ch == '(') {
+            pos++;
+            Expr inner = expr();
+            expect(")");
+            return inner;
+        }
+        if ((ch >= '0' && ch <= '9') || ch == '.') {
+            return new Constant(number());
+        }
+
+        int start = pos;
+        String name = name();
+        if (peek('(')) {
+            pos++;
+            return function(name.toLowerCase(), start);
+        }
+        String sub = accept(".") ? name() : null;
+        String ref = sub == null ? name : name + "." + sub;
+        int slot = slot(scalarSlots, ref);
+        return c -> c.scalars[slot];
+    }
+
+    private Expr function(String name, int start) {
+        switch (name) {
+            case "sum":
+            case "avg":
+            case "count":
+            case "stdev":
+                return aggregate(name, column());
+            case "min":
+            case "max":
+                // min(table.col) aggregates a column; min(a, b, ...) compares values
+                int mark = pos;
+                if (isColumnArgument()) {
+                    pos = mark;
+                    return aggregate(name, column());
+                }
+                pos = mark;
+                return variadic(name, args(1));
+            case "abs":
+                return unaryFunction(Math::abs, args(1, 1));
+            case "sqrt":
+                return unaryFunction(Math::sqrt, args(1, 1));
+            case "floor":
+                return unaryFunction(Math::floor, args(1, 1));
+            case "ceil":
+                return unaryFunction(Math::ceil, args(1, 1));
+            case "round": {
+                List<Expr> a = args(1, 2);
+                Expr x = a.get(0);
+                Expr digits = a.size() > 1 ? a.get(1) : new Constant(0);
+                return fold(c -> round(x.eval(c), digits.eval(c)), x, digits);
+            }
+            case "if": {
+                List<Expr> a = args(3, 3);
+                Expr cond = a.get(0);
+                Expr then = a.get(1);
+                Expr otherwise = a.get(2);
+                if (cond instanceof Constant) {
+                    double test = ((Constant) cond).value;
+                    return Double.isNaN(test) ? new Constant(Double.NaN) : test != 0 ? then : otherwise;
+                }
+                return c -> {
+                    double test = cond.eval(c);
+                    if (Double.isNaN(test)) {
+                        return Double.NaN;
+                    }
+                    return test != 0 ? then.eval(c) : otherwise.eval(c);
+                };
+            }
+            default:
+                pos = start;
+                throw error("unknown function '" + name + "'");
+        }
+    }
+
+    private boolean isColumnArgument() {
+        try {
+            name();
+            if (!accept(".")) {
+                return false;
+            }
+            name();
+            return accept(")");
+        } catch (FormulaException ex) {
+            return false;
+        }
+    }
+
+    private int column() {
+        String table = name();
+        expect(".");
+        String column = name();
+        expect(")");
+        return slot(columnSlots, table + "." + column);
+    }
+
+    private static Expr aggregate(String name, int slot) {
+        switch (name) {
+            case "sum":
+                return c -> {
+                    double[] values = c.columns[slot];
+                    double sum = 0;
+                    int n = 0;
+                    for (int i = 0, size = c.columnSizes[slot]; i < size; i++) {
+                        if (!Double.isNaN(values[i])) {
+                            sum += values[i];
+                            n++;
+                        }
+                    }
+                    return n == 0 ? Double.NaN : sum;
+                };
+            case "avg":
+                return c -> {
+                    double[] values = c.columns[slot];
+                    double sum = 0;
+                    int n = 0;
+                    for (int i = 0, size = c.columnSizes[slot]; i < size; i++) {
+                        if (!Double.isNaN(values[i])) {
+                            sum += values[i];
+                            n++;
+                        }
+                    }
+                    return n == 0 ? Double.NaN : sum / n;
+                };
+            case "count":
+                return c -> {
+                    double[] values = c.columns[slot];
+                    int n = 0;
+                    for (int i = 0, size = c.columnSizes[slot]; i < size; i++) {
+                        if (!Double.isNaN(values[i])) {
+                            n++;
+                        }
+                    }
+                    return n;
+                };
+            case "stdev":
+                // sample standard deviation, Welford's update
+                return c -> {
+                    double[] values = c.columns[slot];
+                    double mean = 0;
+                    double m2 = 0;
+                    int n = 0;
+                    for (int i = 0, size = c.columnSizes[slot]; i < size; i++) {
+                        double v = values[i];
+                        if (!Double.isNaN(v)) {
+                            n++;
+                            double delta = v - mean;
+                            mean += delta / n;
+                            m2 += delta * (v - mean);
+                        }
+                    }
+                    return n < 2 ? Double.NaN : Math.sqrt(m2 / (n - 1));
+                };
+            default:
+                boolean max = "max".equals(name);
+                return c -> {
+                    double[] values = c.columns[slot];
+                    double result = Double.NaN;
+                    for (int i = 0, size = c.columnSizes[slot]; i < size; i++) {
+                        double v = values[i];
+                        if (!Double.isNaN(v) && (Double.isNaN(result) || (max ? v > result : v < result))) {
+                            result = v;
+                        }
+                    }
+                    return result;
+                };
+        }
+    }
+
+    private static Expr variadic(String name, List<Expr> args) {
+        Expr[] operands = args.toArray(new Expr[0]);
+        boolean max = "max".equals(name);
+        return fold(c -> {
+            double result = operands[0].eval(c);
+            for (int i = 1; i < operands.length; i++) {
+                double v = operands[i].eval(c);
+                result = max ? Math.max(result, v) : Math.min(result, v);
+            }
+            return result;
+        }, operands);
+    }
+
+    private static Expr unaryFunction(java.util.function.DoubleUnaryOperator op, List<Expr> args) {
+        Expr x = args.get(0);
+        return fold(c -> op.applyAsDouble(x.eval(c)), x);
+    }
+
+    // A node whose operands are all constants is evaluated once here, so "2^3" or "1 / 1000" cost nothing per sheet.
+    private static Expr fold(Expr node, Expr... operands) {
+        for (Expr operand : operands) {
+            if (!(operand instanceof Constant)) {
+                return node;
+            }
+        }
+        return new Constant(node.eval(null));
+    }
+
+    private static final class Constant implements Expr {
+        final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double eval(FormulaContext ctx) {
+            return value;
+        }
+    }
+
+    // half away from zero, like the sheets are rounded by hand
+    private static double round(double x, double digits) {
+        double scale = Math.pow(10, Math.rint(digits));
+        return Math.signum(x) * Math.floor(Math.abs(x) * scale + 0.5) / scale;
+    }
+
+    private List<Expr> args(int min) {
+        return args(min, Integer.MAX_VALUE);
+    }
+
+    private List<Expr> args(int min, int max) {
+        List<Expr> args = new ArrayList<>();
+        if (!accept(")")) {
+            do {
+                args.add(expr());
+            } while (accept(","));
+            expect(")");
+        }
+        if (args.size() < min || args.size() > max) {
+            throw error(min == max ? "expected " + min + " argument(s)"
+                    : max == Integer.MAX_VALUE ? "expected at least " + min + " argument(s)"
+                    : "expected " + min + " to " + max + " arguments");
+        }
+        return args;
+    }
+
+    private static int slot(Map<String, Integer> slots, String ref) {
+        Integer slot = slots.get(ref);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(ref, slot);
+        }
+        return slot;
+    }
+
+    private String name() {
+        skipSpaces();
+        if (pos < text.length() && text.charAt(pos) == '`') {
+            int end = text.indexOf('`', pos + 1);
+            if (end <= pos + 1) {
+                throw error("unterminated or empty quoted name");
+            }
+            String name = text.substring(pos + 1, end);
+            pos = end + 1;
+            return name;
+        }
+        int start = pos;
+        if (pos >= text.length() || !isNameStart(text.charAt(pos))) {
+            throw error(pos >= text.length() ? "unexpected end of formula" : "unexpected '" + text.charAt(pos) + "'");
+        }
+        while (pos < text.length() && (isNameStart(text.charAt(pos)) || Character.isDigit(text.charAt(pos)))) {
+            pos++;
+        }
+        return text.substring(start, pos);
+    }
+
+    private static boolean isNameStart(char ch) {
+        return Character.isLetter(ch) || ch == '_';
+    }
+
+    private double number() {
+        int start = pos;
+        while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+            pos++;
+        }
+        if (pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < text.length() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) {
+                pos++;
+            }
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                pos++;
+            }
+        }
+        try {
+            return Double.parseDouble(text.substring(start, pos));
+        } catch (NumberFormatException ex) {
+            pos = start;
+            throw error("invalid number");
+        }
+    }
+
+    private boolean peek(char ch) {
+        skipSpaces();
+        return pos < text.length() && text.charAt(pos) == ch;
+    }
+
+    private boolean accept(String token) {
+        skipSpaces();
+        if (text.startsWith(token, pos)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw error("expected '" + token + "'");
+        }
+    }
+
+    private void skipSpaces() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private FormulaException error(String message) {
+        return new FormulaException(message + " at position " + (pos + 1));
+    }
+}
@@ -0,0 +1,162 @@
+package com.scalebackend.formula;
+
+import com.scalebackend.dto.FieldDefinitionDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// The formulas of one OUTPUT template version, compiled once. References to input keys are shared
+// slots across all formulas of the template; a Binding maps them to the field ids of one input
+// template version.
+public final class FormulaProgram {
+
+    private static final String NUMBER = "NUMBER";
+
+    private final String[] fieldIds;
+    private final String[] fieldKeys;
+    private final String[] defaultUnits;
+    private final Expr[] exprs;
+    private final String[] scalarRefs;
+    private final String[] columnRefs;
+    private final Map<Integer, Binding> bindings = new ConcurrentHashMap<>();
+
+    private FormulaProgram(List<FieldDefinitionDTO> formulaFields, List<Expr> exprs,
+                           Map<String, Integer> scalarSlots, Map<String, Integer> columnSlots) {
+        int n = formulaFields.size();
+        this.fieldIds = new String[n];
+        this.fieldKeys = new String[n];
+        this.defaultUnits = new String[n];
+        for (int i = 0; i < n; i++) {
+            FieldDefinitionDTO f = formulaFields.get(i);
+            fieldIds[i] = String.valueOf(f.id);
+            fieldKeys[i] = f.key;
+            defaultUnits[i] = f.unitOptions != null && f.unitOptions.size() == 1 ? f.unitOptions.get(0) : null;
+        }
+        this.exprs = exprs.toArray(new Expr[0]);
+        this.scalarRefs = scalarSlots.keySet().toArray(new String[0]);
+        this.columnRefs = columnSlots.keySet().toArray(new String[0]);
+    }
+
+    public static FormulaProgram compile(List<FieldDefinitionDTO> fields) {
+        List<FieldDefinitionDTO> formulaFields = new ArrayList<>();
+        List<Expr> exprs = new ArrayList<>();
+        // insertion ordered so the slot number equals the position in scalarRefs / columnRefs
+        Map<String, Integer> scalarSlots = new LinkedHashMap<>();
+        Map<String, Integer> columnSlots = new LinkedHashMap<>();
+        for (FieldDefinitionDTO f : fields) {
+            if (f.formula == null || f.formula.trim().isEmpty()) {
+                continue;
+            }
+            if (!NUMBER.equals(f.type) || Boolean.TRUE.equals(f.isMulti)) {
+                throw new FormulaException("field " + f.key + ": only single NUMBER fields can have a formula");
+            }
+            try {
+                exprs.add(FormulaParser.parse(f.formula, scalarSlots, columnSlots));
+            } catch (FormulaException ex) {
+                throw new FormulaException("field " + f.key + ": " + ex.getMessage());
+            }
+            formulaFields.add(f);
+        }
+        return new FormulaProgram(formulaFields, exprs, scalarSlots, columnSlots);
+    }
+
+    public boolean isEmpty() {
+        return exprs.length == 0;
+    }
+
+    public int size() {
+        return exprs.length;
+    }
+
+    public String fieldId(int i) {
+        return fieldIds[i];
+    }
+
+    public String fieldKey(int i) {
+        return fieldKeys[i];
+    }
+
+    public Binding bind(Integer inputTemplateId, Function<Integer, List<FieldDefinitionDTO>> fieldsOf) {
+        return bindings.computeIfAbsent(inputTemplateId, id -> new Binding(fieldsOf.apply(id), scalarRefs, columnRefs));
+    }
+
+    public void load(FormulaContext ctx, Binding binding, Map<String, Object> inputValues) {
+        ctx.load(binding, inputValues);
+    }
+
+    // NaN or infinite when an input is missing or the formula is undefined for it (e.g. division by zero).
+    public double evaluate(int i, FormulaContext ctx) {
+        return exprs[i].eval(ctx);
+    }
+
+    // Evaluates every formula against one input sheet and writes the finite results into the output
+    // values, keeping the unit the client sent if any. Returns the number of fields written.
+    public int apply(FormulaContext ctx, Binding binding, Map<String, Object> inputValues, Map<String, Object> outputValues) {
+        ctx.load(binding, inputValues);
+        int written = 0;
+        for (int i = 0; i < exprs.length; i++) {
+            double result = exprs[i].eval(ctx);
+            if (Double.isNaN(result) || Double.isInfinite(result)) {
+                continue;
+            }
+            Object previous = outputValues.get(fieldIds[i]);
+            Object unit = previous instanceof Map ? ((Map<?, ?>) previous).get("unit") : null;
+            Map<String, Object> value = new HashMap<>(4);
+            value.put("type", NUMBER);
+            value.put("value", result);
+            value.put("unit", unit != null ? unit : defaultUnits[i]);
+            outputValues.put(fieldIds[i], value);
+            written++;
+        }
+        return written;
+    }
+
+    public static final class Binding {
+        final String[] scalarFieldIds;
+        final String[] scalarSubKeys;
+        final String[] columnFieldIds;
+        final String[] columnKeys;
+
+        private Binding(List<FieldDefinitionDTO> inputFields, String[] scalarRefs, String[] columnRefs) {
+            Map<String, FieldDefinitionDTO> byKey = new HashMap<>();
+            for (FieldDefinitionDTO f : inputFields) {
+                byKey.put(f.key, f);
+            }
+
+            scalarFieldIds = new String[scalarRefs.length];
+            scalarSubKeys = new String[scalarRefs.length];
+            for (int i = 0; i < scalarRefs.length; i++) {
+                String ref = scalarRefs[i];
+                FieldDefinitionDTO f = byKey.get(ref);
+                if (f == null) {
+                    // "key.sub" reads one value of a multi-value field
+                    int dot = ref.indexOf('.');
+                    f = dot < 0 ? null : byKey.get(ref.substring(0, dot));
+                    if (f != null && Boolean.TRUE.equals(f.isMulti)) {
+                        scalarSubKeys[i] = ref.substring(dot + 1);
+                    } else {
+                        f = null;
+                    }
+                }
+                scalarFieldIds[i] = f == null ? null : String.valueOf(f.id);
+            }
+
+            columnFieldIds = new String[columnRefs.length];
+            columnKeys = new String[columnRefs.length];
+            for (int i = 0; i < columnRefs.length; i++) {
+                String ref = columnRefs[i];
+                int dot = ref.indexOf('.');
+                FieldDefinitionDTO f = byKey.get(ref.substring(0, dot));
+                if (f != null && "TABLE".equals(f.type)) {
+                    columnFieldIds[i] = String.valueOf(f.id);
+                    columnKeys[i] = ref.substring(dot + 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.scalebackend.limit;
+
+import org.springframework.http.HttpStatus;
+
+// Thrown by ServiceLimiter instead of letting a call queue for a connection. status is the HTTP status to
+// answer with: 429 for bulk work shed to protect interactive reads, 503 when the whole limit is in use.
+public class OverloadedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public final Priority priority;
+    public final HttpStatus status;
+    public final int retryAfterSeconds;
+
+    public OverloadedException(Priority priority, HttpStatus status, int retryAfterSeconds, String message) {
+        super(message);
+        this.priority = priority;
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,8 @@
+package com.scalebackend.limit;
+
+public enum Priority {
+    // single reads a user is waiting on; may use the whole limit
+    INTERACTIVE,
+    // writes, exports, streams, searches and rebuilds; capped at a share of the limit
+    BULK
+}
@@ -0,0 +1,207 @@
+package com.scalebackend.limit;
+
+import com.scalebackend.dto.LimiterStatsDTO;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Adaptive concurrency limit in front of the ScaleService used by ScaleWS (the "limitedScaleService" bean).
+// Calls over the limit fail at once with OverloadedException instead of queueing for a pool connection.
+//
+// The limit follows the gradient between the unloaded latency (baseline) and the latency of the last window:
+// while recent calls are no slower than baseline * tolerance the limit grows by about sqrt(limit) per window,
+// once they are slower it shrinks in proportion to the slowdown. Only interactive calls that reach the
+// database are sampled: bulk call latency depends on the size of the work, and cache hits say nothing
+// about database load. Bulk calls may only hold limit.bulkShare of the limit, so interactive reads keep
+// getting through when bulk work piles up.
+@Component("serviceLimiter")
+public class ServiceLimiter implements MethodInterceptor {
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final double SMOOTHING = 0.2;
+    private static final double BASELINE_DRIFT_WINDOWS = 600;
+
+    // Same split as the AsyncHandlers Workload of each ScaleWS handler (export, GET /sheets, search, history,
+    // batch upload, stats rebuild, formula recompute), plus the writes and the unpaged listings.
+    private static final Set<String> BULK_METHODS = new HashSet<>(Arrays.asList(
+            "exportSheets", "streamItemSheets", "listItemSheets", "searchSheets", "getSheetHistory", "createSheets",
+            "rebuildFieldStats", "recomputeFormulas", "streamPartTemplateMappings",
+            "createType", "createSheet", "enableProjection", "createTemplateVersion", "saveFieldsAsNewVersion",
+            "savePartTemplateMapping"));
+
+    // Answered from TemplateCache, ItemTreeCache or SheetCache in microseconds: sampling them would pull the
+    // baseline down to cache-hit latency and make every call that reaches the database look like overload.
+    private static final Set<String> UNSAMPLED_METHODS = new HashSet<>(Arrays.asList(
+            "getItemsTree", "getItemsTreePayload", "getSheetPayload", "getTemplates", "getTemplatesPayload",
+            "getTemplateFields", "getTemplateFieldsPayload"));
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double bulkShare;
+    private final int retryAfterSeconds;
+
+    private volatile double limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger bulkInflight = new AtomicInteger();
+    private final LongAdder[] admitted = {new LongAdder(), new LongAdder()};
+    private final LongAdder[] rejected = {new LongAdder(), new LongAdder()};
+
+    // guarded by this
+    private long windowStart = System.nanoTime();
+    private long windowSumNanos;
+    private int windowCount;
+    private int windowMaxInflight;
+    private volatile double shortRttNanos;
+    private volatile double baselineRttNanos;
+
+    public ServiceLimiter(@Value("${limit.enabled}") boolean enabled,
+                          @Value("${limit.initial}") int initialLimit,
+                          @Value("${limit.min}") int minLimit,
+                          @Value("${limit.max}") int maxLimit,
+                          @Value("${limit.tolerance}") double tolerance,
+                          @Value("${limit.bulkShare}") double bulkShare,
+                          @Value("${limit.retryAfterSec}") int retryAfterSeconds) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.bulkShare = bulkShare;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!enabled) {
+            return invocation.proceed();
+        }
+        String method = invocation.getMethod().getName();
+        Priority priority = priorityOf(method);
+        boolean sampled = priority == Priority.INTERACTIVE && !UNSAMPLED_METHODS.contains(method);
+        int concurrent = acquire(priority);
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long rtt = System.nanoTime() - start;
+            release(priority);
+            if (sampled) {
+                onSample(rtt, concurrent);
+            }
+        }
+    }
+
+    static Priority priorityOf(String method) {
+        return BULK_METHODS.contains(method) ? Priority.BULK : Priority.INTERACTIVE;
+    }
+
+    private int acquire(Priority priority) {
+        int cap = currentLimit();
+        if (priority == Priority.BULK && !tryIncrement(bulkInflight, bulkLimit(cap))) {
+            throw reject(priority, HttpStatus.TOO_MANY_REQUESTS);
+        }
+        int concurrent = tryIncrementAndGet(inflight, cap);
+        if (concurrent < 0) {
+            if (priority == Priority.BULK) {
+                bulkInflight.decrementAndGet();
+            }
+            throw reject(priority, priority == Priority.BULK ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        admitted[priority.ordinal()].increment();
+        return concurrent;
+    }
+
+    private void release(Priority priority) {
+        inflight.decrementAndGet();
+        if (priority == Priority.BULK) {
+            bulkInflight.decrementAndGet();
+        }
+    }
+
+    private OverloadedException reject(Priority priority, HttpStatus status) {
+        rejected[priority.ordinal()].increment();
+        return new OverloadedException(priority, status, retryAfterSeconds,
+                "server is busy (" + inflight.get() + " of " + currentLimit() + " calls in progress), retry later.");
+    }
+
+    private static boolean tryIncrement(AtomicInteger counter, int cap) {
+        return tryIncrementAndGet(counter, cap) >= 0;
+    }
+
+    private static int tryIncrementAndGet(AtomicInteger counter, int cap) {
+        while (true) {
+            int current = counter.get();
+            if (current >= cap) {
+                return -1;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private synchronized void onSample(long rttNanos, int concurrent) {
+        windowSumNanos += rttNanos;
+        windowCount++;
+        windowMaxInflight = Math.max(windowMaxInflight, concurrent);
+        long now = System.nanoTime();
+        if (windowCount < MIN_WINDOW_SAMPLES || now - windowStart < WINDOW_NANOS) {
+            return;
+        }
+        double shortRtt = (double) windowSumNanos / windowCount;
+        // The baseline is the fastest window seen, allowed to drift up slowly so a lasting change in the
+        // unloaded latency (a bigger table, a slower disk) is eventually accepted as the new normal.
+        double baseline = baselineRttNanos == 0 || shortRtt < baselineRttNanos
+                ? shortRtt : baselineRttNanos + (shortRtt - baselineRttNanos) / BASELINE_DRIFT_WINDOWS;
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / shortRtt));
+        double next = current * (1 - SMOOTHING) + (current * gradient + Math.sqrt(current)) * SMOOTHING;
+        if (windowMaxInflight < current / 2) {
+            // a limit that was never approached says nothing about capacity; only let it shrink
+            next = Math.min(next, current);
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+        shortRttNanos = shortRtt;
+        baselineRttNanos = baseline;
+        windowStart = now;
+        windowSumNanos = 0;
+        windowCount = 0;
+        windowMaxInflight = 0;
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private int bulkLimit(int cap) {
+        return Math.max(1, (int) (cap * bulkShare));
+    }
+
+    public LimiterStatsDTO stats() {
+        LimiterStatsDTO dto = new LimiterStatsDTO();
+        dto.enabled = enabled;
+        dto.limit = currentLimit();
+        dto.bulkLimit = bulkLimit(dto.limit);
+        dto.inflight = inflight.get();
+        dto.bulkInflight = bulkInflight.get();
+        dto.shortRttMs = shortRttNanos / 1e6;
+        dto.baselineRttMs = baselineRttNanos / 1e6;
+        dto.admittedInteractive = admitted[Priority.INTERACTIVE.ordinal()].sum();
+        dto.admittedBulk = admitted[Priority.BULK.ordinal()].sum();
+        dto.rejectedInteractive = rejected[Priority.INTERACTIVE.ordinal()].sum();
+        dto.rejectedBulk = rejected[Priority.BULK.ordinal()].sum();
+        return dto;
+    }
+}
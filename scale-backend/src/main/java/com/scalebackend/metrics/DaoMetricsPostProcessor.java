@@ -0,0 +1,104 @@
+package com.scalebackend.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// Wraps every @Repository *DaoJdbc bean in a proxy that times each interface method, counts the rows it
+// returns (collection size, or callbacks for streaming methods) and counts failures by exception type.
+@Component
+public class DaoMetricsPostProcessor implements BeanPostProcessor {
+
+    @Autowired
+    private LatencyMetrics latencyMetrics;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Class<?> type = bean.getClass();
+        if (!type.isAnnotationPresent(Repository.class) || !type.getSimpleName().endsWith("DaoJdbc")) {
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.addAdvice(new TimingInterceptor(type.getSimpleName()));
+        return factory.getProxy(type.getClassLoader());
+    }
+
+    private final class TimingInterceptor implements MethodInterceptor {
+        private final String prefix;
+        private final Map<Method, LatencyTimer> timers = new ConcurrentHashMap<>();
+
+        TimingInterceptor(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            LatencyTimer timer = timers.computeIfAbsent(invocation.getMethod(), m -> latencyMetrics.daoTimer(prefix + "." + m.getName()));
+            long[] streamed = countCallbacks(invocation.getArguments());
+            long start = System.nanoTime();
+            try {
+                Object result = invocation.proceed();
+                timer.addRows(streamed != null ? streamed[0] : rowsOf(result));
+                return result;
+            } catch (Throwable ex) {
+                timer.countOutcome(ex.getClass().getSimpleName());
+                throw ex;
+            } finally {
+                timer.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    // Streaming methods hand rows to a callback; wrap it so they can be counted.
+    @SuppressWarnings("unchecked")
+    private static long[] countCallbacks(Object[] args) {
+        long[] count = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Consumer) {
+                Consumer<Object> target = (Consumer<Object>) args[i];
+                long[] c = count = count == null ? new long[1] : count;
+                args[i] = (Consumer<Object>) row -> {
+                    c[0]++;
+                    target.accept(row);
+                };
+            } else if (args[i] instanceof BiConsumer) {
+                BiConsumer<Object, Object> target = (BiConsumer<Object, Object>) args[i];
+                long[] c = count = count == null ? new long[1] : count;
+                args[i] = (BiConsumer<Object, Object>) (a, b) -> {
+                    c[0]++;
+                    target.accept(a, b);
+                };
+            }
+        }
+        return count;
+    }
+
+    private static long rowsOf(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Number || result instanceof Boolean) {
+            // counts, ids and flags are not rows
+            return 0;
+        }
+        return 1;
+    }
+}
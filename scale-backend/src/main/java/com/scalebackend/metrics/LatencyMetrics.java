@@ -0,0 +1,49 @@
+package com.scalebackend.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Registry of the timers behind GET /scale/metrics: one per ScaleWS/MetricsWS handler, per *DaoJdbc method
+// and per JSON (de)serialization site in the DAOs. Callers look a timer up once and keep it.
+@Component
+public class LatencyMetrics {
+
+    private final Map<String, LatencyTimer> http = new ConcurrentHashMap<>();
+    private final Map<String, LatencyTimer> dao = new ConcurrentHashMap<>();
+    private final Map<String, LatencyTimer> json = new ConcurrentHashMap<>();
+
+    public LatencyTimer httpTimer(String handler) {
+        return http.computeIfAbsent(handler, LatencyTimer::new);
+    }
+
+    public LatencyTimer daoTimer(String method) {
+        return dao.computeIfAbsent(method, LatencyTimer::new);
+    }
+
+    public LatencyTimer jsonTimer(String site) {
+        return json.computeIfAbsent(site, LatencyTimer::new);
+    }
+
+    Collection<LatencyTimer> httpTimers() {
+        return sorted(http);
+    }
+
+    Collection<LatencyTimer> daoTimers() {
+        return sorted(dao);
+    }
+
+    Collection<LatencyTimer> jsonTimers() {
+        return sorted(json);
+    }
+
+    private static List<LatencyTimer> sorted(Map<String, LatencyTimer> timers) {
+        List<LatencyTimer> result = new ArrayList<>(timers.values());
+        result.sort((a, b) -> a.name.compareTo(b.name));
+        return result;
+    }
+}
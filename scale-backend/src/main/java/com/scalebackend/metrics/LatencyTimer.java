@@ -0,0 +1,34 @@
+package com.scalebackend.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency plus outcome counters (HTTP status, exception type) and rows returned for one endpoint or method.
+public final class LatencyTimer {
+
+    public final String name;
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final LongAdder rows = new LongAdder();
+    final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    LatencyTimer(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    public void addRows(long count) {
+        rows.add(count);
+    }
+
+    public void countOutcome(String outcome) {
+        LongAdder counter = outcomes.get(outcome);
+        if (counter == null) {
+            counter = outcomes.computeIfAbsent(outcome, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+}
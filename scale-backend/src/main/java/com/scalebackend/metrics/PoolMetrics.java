@@ -0,0 +1,89 @@
+package com.scalebackend.metrics;
+
+import com.scalebackend.dto.PoolStatsDTO;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component("poolMetrics")
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    private final LongAdder acquiredCount = new LongAdder();
+    private final LongAdder acquiredNanos = new LongAdder();
+    private final AtomicLong maxAcquiredNanos = new AtomicLong();
+    private final LongAdder usageCount = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder createdMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                createdCount.increment();
+                createdMillis.add(connectionCreatedMillis);
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquiredCount.increment();
+                acquiredNanos.add(elapsedAcquiredNanos);
+                maxAcquiredNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageCount.increment();
+                usageMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public PoolStatsDTO snapshot() {
+        PoolStatsDTO dto = new PoolStatsDTO();
+        dto.poolName = poolName;
+
+        PoolStats stats = poolStats;
+        if (stats != null) {
+            dto.activeConnections = stats.getActiveConnections();
+            dto.idleConnections = stats.getIdleConnections();
+            dto.totalConnections = stats.getTotalConnections();
+            dto.pendingThreads = stats.getPendingThreads();
+            dto.minConnections = stats.getMinConnections();
+            dto.maxConnections = stats.getMaxConnections();
+        }
+
+        long acquired = acquiredCount.sum();
+        long used = usageCount.sum();
+        long created = createdCount.sum();
+        dto.connectionsAcquired = acquired;
+        dto.avgWaitMillis = acquired == 0 ? 0d : nanosToMillis(acquiredNanos.sum()) / acquired;
+        dto.maxWaitMillis = nanosToMillis(maxAcquiredNanos.get());
+        dto.avgUsageMillis = used == 0 ? 0d : (double) usageMillis.sum() / used;
+        dto.connectionsCreated = created;
+        dto.avgCreateMillis = created == 0 ? 0d : (double) createdMillis.sum() / created;
+        dto.connectionTimeouts = timeouts.sum();
+        return dto;
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,152 @@
+package com.scalebackend.metrics;
+
+import com.scalebackend.dto.AsyncPoolStatsDTO;
+import com.scalebackend.dto.CacheStatsDTO;
+import com.scalebackend.dto.LimiterStatsDTO;
+import com.scalebackend.dto.PoolStatsDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Renders the latency timers, pool and cache stats in the Prometheus text exposition format (0.0.4).
+@Component
+public class PrometheusExporter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] BUCKET_SECONDS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    @Autowired
+    private LatencyMetrics latencyMetrics;
+
+    public String scrape(PoolStatsDTO pool, List<CacheStatsDTO> caches, List<AsyncPoolStatsDTO> asyncPools, LimiterStatsDTO limiter) {
+        StringBuilder out = new StringBuilder(16 * 1024);
+
+        histograms(out, "scale_http_request_seconds", "Latency of HTTP handlers.", "handler", latencyMetrics.httpTimers());
+        outcomes(out, "scale_http_responses_total", "HTTP responses by handler and status.", "handler", "status", latencyMetrics.httpTimers());
+
+        histograms(out, "scale_dao_call_seconds", "Latency of DAO methods.", "method", latencyMetrics.daoTimers());
+        header(out, "scale_dao_rows_total", "Rows returned or streamed by DAO methods.", "counter");
+        for (LatencyTimer timer : latencyMetrics.daoTimers()) {
+            sample(out, "scale_dao_rows_total", "method", timer.name, null, null, timer.rows.sum());
+        }
+        outcomes(out, "scale_dao_errors_total", "DAO method failures by exception type.", "method", "exception", latencyMetrics.daoTimers());
+
+        histograms(out, "scale_json_seconds", "JSON (de)serialization time in the DAOs.", "site", latencyMetrics.jsonTimers());
+
+        if (pool != null && pool.poolName != null) {
+            header(out, "scale_pool_connections", "Connections in the pool by state.", "gauge");
+            sample(out, "scale_pool_connections", "state", "active", null, null, pool.activeConnections);
+            sample(out, "scale_pool_connections", "state", "idle", null, null, pool.idleConnections);
+            header(out, "scale_pool_pending_threads", "Threads waiting for a connection.", "gauge");
+            sample(out, "scale_pool_pending_threads", null, null, null, null, pool.pendingThreads);
+            header(out, "scale_pool_acquired_total", "Connections handed out by the pool.", "counter");
+            sample(out, "scale_pool_acquired_total", null, null, null, null, pool.connectionsAcquired);
+            header(out, "scale_pool_timeouts_total", "Connection requests that timed out.", "counter");
+            sample(out, "scale_pool_timeouts_total", null, null, null, null, pool.connectionTimeouts);
+        }
+
+        header(out, "scale_async_threads", "Busy threads of the async handler pools.", "gauge");
+        for (AsyncPoolStatsDTO p : asyncPools) {
+            sample(out, "scale_async_threads", "pool", p.name, null, null, p.activeThreads);
+        }
+        header(out, "scale_async_queued", "Handlers waiting for a thread.", "gauge");
+        for (AsyncPoolStatsDTO p : asyncPools) {
+            sample(out, "scale_async_queued", "pool", p.name, null, null, p.queued);
+        }
+        header(out, "scale_async_handlers_total", "Async handlers by outcome.", "counter");
+        for (AsyncPoolStatsDTO p : asyncPools) {
+            sample(out, "scale_async_handlers_total", "pool", p.name, "outcome", "completed", p.completed);
+            sample(out, "scale_async_handlers_total", "pool", p.name, "outcome", "rejected", p.rejected);
+            sample(out, "scale_async_handlers_total", "pool", p.name, "outcome", "timeout", p.timedOut);
+        }
+
+        header(out, "scale_limiter_limit", "Current adaptive concurrency limit of the ScaleService.", "gauge");
+        sample(out, "scale_limiter_limit", "priority", "all", null, null, limiter.limit);
+        sample(out, "scale_limiter_limit", "priority", "bulk", null, null, limiter.bulkLimit);
+        header(out, "scale_limiter_inflight", "ScaleService calls in progress.", "gauge");
+        sample(out, "scale_limiter_inflight", "priority", "all", null, null, limiter.inflight);
+        sample(out, "scale_limiter_inflight", "priority", "bulk", null, null, limiter.bulkInflight);
+        header(out, "scale_limiter_calls_total", "ScaleService calls by priority and admission result.", "counter");
+        sample(out, "scale_limiter_calls_total", "priority", "interactive", "result", "admitted", limiter.admittedInteractive);
+        sample(out, "scale_limiter_calls_total", "priority", "interactive", "result", "rejected", limiter.rejectedInteractive);
+        sample(out, "scale_limiter_calls_total", "priority", "bulk", "result", "admitted", limiter.admittedBulk);
+        sample(out, "scale_limiter_calls_total", "priority", "bulk", "result", "rejected", limiter.rejectedBulk);
+
+        header(out, "scale_cache_requests_total", "Cache lookups by result.", "counter");
+        for (CacheStatsDTO cache : caches) {
+            sample(out, "scale_cache_requests_total", "cache", cache.name, "result", "hit", cache.hits);
+            sample(out, "scale_cache_requests_total", "cache", cache.name, "result", "miss", cache.misses);
+        }
+        header(out, "scale_cache_evictions_total", "Cache evictions.", "counter");
+        for (CacheStatsDTO cache : caches) {
+            sample(out, "scale_cache_evictions_total", "cache", cache.name, null, null, cache.evictions);
+        }
+        header(out, "scale_cache_entries", "Entries held by each cache.", "gauge");
+        for (CacheStatsDTO cache : caches) {
+            sample(out, "scale_cache_entries", "cache", cache.name, null, null, cache.size);
+        }
+        return out.toString();
+    }
+
+    private static void histograms(StringBuilder out, String name, String help, String label, Collection<LatencyTimer> timers) {
+        header(out, name, help, "histogram");
+        for (LatencyTimer timer : timers) {
+            long[] counts = timer.histogram.snapshot();
+            long cumulative = 0;
+            int index = 0;
+            // A bucket is counted under the first boundary that its whole range fits below.
+            for (double le : BUCKET_SECONDS) {
+                long limit = (long) (le * 1e9);
+                while (index < counts.length && LatencyHistogram.lowerBound(index + 1) <= limit) {
+                    cumulative += counts[index++];
+                }
+                sample(out, name + "_bucket", label, timer.name, "le", Double.toString(le), cumulative);
+            }
+            while (index < counts.length) {
+                cumulative += counts[index++];
+            }
+            sample(out, name + "_bucket", label, timer.name, "le", "+Inf", cumulative);
+            out.append(name).append("_sum{").append(label).append("=\"").append(escape(timer.name)).append("\"} ")
+                    .append(timer.histogram.sumNanos() / 1e9).append('\n');
+            sample(out, name + "_count", label, timer.name, null, null, cumulative);
+        }
+    }
+
+    private static void outcomes(StringBuilder out, String name, String help, String label, String outcomeLabel, Collection<LatencyTimer> timers) {
+        header(out, name, help, "counter");
+        for (LatencyTimer timer : timers) {
+            for (Map.Entry<String, LongAdder> e : new TreeMap<>(timer.outcomes).entrySet()) {
+                sample(out, name, label, timer.name, outcomeLabel, e.getKey(), e.getValue().sum());
+            }
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String value, String label2, String value2, long sample) {
+        out.append(name);
+        if (label != null) {
+            out.append('{').append(label).append("=\"").append(escape(value)).append('"');
+            if (label2 != null) {
+                out.append(',').append(label2).append("=\"").append(escape(value2)).append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ').append(sample).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
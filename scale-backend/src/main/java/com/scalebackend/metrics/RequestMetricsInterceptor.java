@@ -0,0 +1,46 @@
+package com.scalebackend.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Times every controller handler from the first dispatch to completion and counts responses by status.
+// ScaleWS turns failures into error envelopes, so the status is what tells a failed call apart.
+@Component
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+
+    @Autowired
+    private LatencyMetrics latencyMetrics;
+
+    private final Map<Method, LatencyTimer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // an async request is dispatched twice; keep the time of the first dispatch
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (!(handler instanceof HandlerMethod) || !(start instanceof Long)) {
+            return;
+        }
+        LatencyTimer timer = timers.computeIfAbsent(((HandlerMethod) handler).getMethod(),
+                m -> latencyMetrics.httpTimer(m.getDeclaringClass().getSimpleName() + "." + m.getName()));
+        timer.record(System.nanoTime() - (Long) start);
+        timer.countOutcome(ex != null && response.getStatus() < 400 ? "500" : Integer.toString(response.getStatus()));
+    }
+}
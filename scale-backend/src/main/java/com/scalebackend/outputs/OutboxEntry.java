@@ -0,0 +1,15 @@
+package com.scalebackend.outputs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class OutboxEntry {
+    public Long id;
+    public Integer inputSheetId;
+    public Integer itemId;
+    public Integer templateId;
+    public String sheetDate;
+    public Map<String, Object> values;
+    public List<Integer> outputTemplateIds = new ArrayList<>();
+}
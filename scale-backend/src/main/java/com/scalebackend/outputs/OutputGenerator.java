@@ -0,0 +1,64 @@
+package com.scalebackend.outputs;
+
+import com.scalebackend.cache.SheetValidatorCache;
+import com.scalebackend.cache.TemplateCache;
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.request.CreateSheetRequestDTO;
+import com.scalebackend.formula.FormulaEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Builds the OUTPUT sheets of an input sheet: input values are carried over to output fields with the
+// same key and type, then formula fields are computed. An output that would not pass validation (e.g. a
+// required field with no source) is not generated and is left for the operator to create.
+@Component
+public class OutputGenerator {
+
+    @Autowired
+    private TemplateCache templateCache;
+
+    @Autowired
+    private SheetValidatorCache sheetValidators;
+
+    @Autowired
+    private FormulaEngine formulaEngine;
+
+    public List<CreateSheetRequestDTO> generate(OutboxEntry entry) {
+        Map<String, Object> valuesByKey = new HashMap<>();
+        Map<String, FieldDefinitionDTO> inputFieldsByKey = new HashMap<>();
+        for (FieldDefinitionDTO f : templateCache.getFields(entry.templateId).fields) {
+            Object value = entry.values.get(String.valueOf(f.id));
+            if (value != null) {
+                valuesByKey.put(f.key, value);
+                inputFieldsByKey.put(f.key, f);
+            }
+        }
+
+        List<CreateSheetRequestDTO> result = new ArrayList<>();
+        for (Integer outputTemplateId : entry.outputTemplateIds) {
+            CreateSheetRequestDTO request = new CreateSheetRequestDTO();
+            request.itemId = entry.itemId;
+            request.templateId = outputTemplateId;
+            request.outputTemplateId = outputTemplateId;
+            request.parentSheetId = entry.inputSheetId;
+            request.sheetDate = entry.sheetDate;
+            for (FieldDefinitionDTO f : templateCache.getFields(outputTemplateId).fields) {
+                FieldDefinitionDTO source = inputFieldsByKey.get(f.key);
+                if (source != null && Objects.equals(source.type, f.type) && Objects.equals(source.isMulti, f.isMulti)) {
+                    request.values.put(String.valueOf(f.id), valuesByKey.get(f.key));
+                }
+            }
+            formulaEngine.apply(request, entry.templateId, entry.values);
+            if (sheetValidators.errors(request).isEmpty()) {
+                result.add(request);
+            }
+        }
+        return result;
+    }
+}
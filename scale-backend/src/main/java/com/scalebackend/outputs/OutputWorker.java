@@ -0,0 +1,157 @@
+package com.scalebackend.outputs;
+
+import com.scalebackend.dao.OutputOutboxDao;
+import com.scalebackend.dto.OutputQueueStatsDTO;
+import com.scalebackend.dto.SheetBatchResultDTO;
+import com.scalebackend.dto.request.CreateSheetRequestDTO;
+import com.scalebackend.service.ScaleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Drains "1scale".output_outbox: up to outputs.workers threads each claim outputs.batchSize input sheets,
+// create their outputs and delete the claimed rows in one transaction. A failing batch is retried one
+// entry at a time so a single bad input only delays itself (with backoff, until outputs.maxAttempts).
+@Component
+public class OutputWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(OutputWorker.class);
+
+    @Autowired
+    private OutputOutboxDao outboxDao;
+
+    @Autowired
+    private OutputGenerator generator;
+
+    @Autowired
+    private ScaleService scaleService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("outputExecutor")
+    private Executor outputExecutor;
+
+    @Value("${outputs.generation.enabled}")
+    private boolean enabled;
+
+    @Value("${outputs.workers}")
+    private int workers;
+
+    @Value("${outputs.batchSize}")
+    private int batchSize;
+
+    @Value("${outputs.maxAttempts}")
+    private int maxAttempts;
+
+    @Value("${outputs.retryBackoffMs}")
+    private long retryBackoffMs;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final LongAdder processedInputs = new LongAdder();
+    private final LongAdder createdOutputs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    @Scheduled(fixedDelayString = "${outputs.pollMs}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        while (true) {
+            int active = activeWorkers.get();
+            if (active >= workers) {
+                return;
+            }
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                outputExecutor.execute(this::drain);
+            }
+        }
+    }
+
+    public OutputQueueStatsDTO stats() {
+        OutputQueueStatsDTO stats = new OutputQueueStatsDTO();
+        stats.enabled = enabled;
+        stats.activeWorkers = activeWorkers.get();
+        stats.processedInputs = processedInputs.sum();
+        stats.createdOutputs = createdOutputs.sum();
+        stats.failures = failures.sum();
+        outboxDao.fillQueueStats(stats);
+        return stats;
+    }
+
+    private void drain() {
+        try {
+            while (processBatch() == batchSize) {
+                // keep going while the queue is full; otherwise wait for the next poll
+            }
+        } catch (Exception ex) {
+            log.warn("output generation worker stopped: {}", ex.getMessage());
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    private int processBatch() {
+        List<Long> claimed = new ArrayList<>();
+        try {
+            return transactionTemplate.execute(status -> {
+                List<OutboxEntry> entries = outboxDao.claim(batchSize);
+                entries.forEach(e -> claimed.add(e.id));
+                process(entries);
+                return entries.size();
+            });
+        } catch (RuntimeException ex) {
+            log.warn("output generation batch failed, retrying {} entries one by one: {}", claimed.size(), ex.getMessage());
+            for (Long id : claimed) {
+                processOne(id);
+            }
+            return claimed.size();
+        }
+    }
+
+    private void processOne(Long id) {
+        try {
+            transactionTemplate.execute(status -> {
+                process(outboxDao.claim(id));
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            failures.increment();
+            transactionTemplate.execute(status -> {
+                outboxDao.markFailed(id, String.valueOf(ex.getMessage()), maxAttempts, retryBackoffMs);
+                return null;
+            });
+        }
+    }
+
+    private void process(List<OutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<CreateSheetRequestDTO> requests = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (OutboxEntry entry : entries) {
+            requests.addAll(generator.generate(entry));
+            ids.add(entry.id);
+        }
+        // Outputs that already exist are skipped by uq_sheet_instance_output_once, so redelivery is harmless.
+        if (!requests.isEmpty()) {
+            SheetBatchResultDTO result = scaleService.createSheets(requests);
+            createdOutputs.add(result.created);
+        }
+        outboxDao.delete(ids);
+        processedInputs.add(entries.size());
+    }
+}
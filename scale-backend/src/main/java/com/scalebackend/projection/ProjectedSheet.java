@@ -0,0 +1,13 @@
+package com.scalebackend.projection;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+public class ProjectedSheet {
+    public Integer id;
+    public Integer itemId;
+    public Integer templateId;
+    public String kind;
+    public LocalDate day;
+    public Map<String, Object> values;
+}
@@ -0,0 +1,215 @@
+package com.scalebackend.projection;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.cache.TemplateCache;
+import com.scalebackend.dao.ProjectionDao;
+import com.scalebackend.dto.ProjectionDTO;
+import com.scalebackend.dto.SheetDTO;
+import com.scalebackend.dto.TemplateDTO;
+import com.scalebackend.dto.request.CreateSheetRequestDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Optional typed copies of sheet values, one table per template code in the "1scale_proj" schema.
+// New sheets are projected by the transaction that creates them; sheets that existed when a projection
+// was enabled are copied by backfill() in id-ordered batches. Tables and columns a template version is
+// missing are added once, in their own transaction, before its first rows are written.
+@Component
+public class ProjectionEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectionEngine.class);
+
+    @Autowired
+    private ProjectionDao projectionDao;
+
+    @Autowired
+    private TemplateCache templateCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TransactionTemplate ddlTransactionTemplate;
+
+    @Value("${projection.enabled}")
+    private boolean enabled;
+
+    @Value("${projection.backfill.batchSize}")
+    private int backfillBatchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Plans whose tables and columns are known to exist; only filled once the DDL that created them has committed.
+    private final Map<Integer, ProjectionPlan> plans = new ConcurrentHashMap<>();
+
+    public ProjectionDTO enable(String templateCode) {
+        requireEnabled();
+        boolean known = false;
+        for (TemplateDTO t : templateCache.getTemplates(null)) {
+            known |= t.code.equals(templateCode);
+        }
+        if (!known) {
+            throw new IllegalArgumentException("Unknown template code: " + templateCode);
+        }
+        return projectionDao.createProjection(templateCode, ProjectionNames.table(templateCode));
+    }
+
+    public List<ProjectionDTO> list() {
+        requireEnabled();
+        return projectionDao.listProjections();
+    }
+
+    public void project(List<CreateSheetRequestDTO> requests, List<SheetDTO> created) {
+        if (!enabled) {
+            return;
+        }
+        Set<Integer> templateIds = new HashSet<>();
+        for (SheetDTO s : created) {
+            if (s != null) {
+                templateIds.add(s.templateId);
+            }
+        }
+        // Read after the sheets are inserted, so a projection enabled concurrently is always seen here.
+        Map<Integer, String> tables = projectionDao.findTablesByTemplateIds(templateIds);
+        if (tables.isEmpty()) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        List<ProjectedSheet> sheets = new ArrayList<>();
+        for (int i = 0; i < created.size(); i++) {
+            SheetDTO s = created.get(i);
+            if (s == null || !tables.containsKey(s.templateId)) {
+                continue;
+            }
+            CreateSheetRequestDTO request = requests.get(i);
+            ProjectedSheet sheet = new ProjectedSheet();
+            sheet.id = s.id;
+            sheet.itemId = s.itemId;
+            sheet.templateId = s.templateId;
+            sheet.kind = s.kind;
+            sheet.day = s.sheetDate == null ? today : LocalDate.parse(s.sheetDate);
+            sheet.values = request.values;
+            sheets.add(sheet);
+        }
+        write(sheets);
+    }
+
+    @Scheduled(fixedDelayString = "${projection.backfill.delayMs}")
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (String templateCode : projectionDao.listPendingBackfills()) {
+                transactionTemplate.execute(status -> backfillBatch(templateCode));
+            }
+        } catch (Exception ex) {
+            log.warn("projection backfill failed: {}", ex.getMessage());
+        }
+    }
+
+    private Void backfillBatch(String templateCode) {
+        ProjectionDTO projection = projectionDao.claimBackfill(templateCode);
+        if (projection == null) {
+            return null;
+        }
+        List<ProjectedSheet> sheets = projectionDao.findBackfillBatch(templateCode, projection.backfillAfterId,
+                projection.backfillUptoId, backfillBatchSize);
+        write(sheets);
+        Integer afterId = sheets.size() < backfillBatchSize ? projection.backfillUptoId : sheets.get(sheets.size() - 1).id;
+        projectionDao.updateBackfill(templateCode, afterId);
+        return null;
+    }
+
+    private void write(List<ProjectedSheet> sheets) {
+        Map<Integer, List<ProjectedSheet>> byTemplate = new LinkedHashMap<>();
+        for (ProjectedSheet s : sheets) {
+            byTemplate.computeIfAbsent(s.templateId, k -> new ArrayList<>()).add(s);
+        }
+        // All DDL runs before the first insert: once this transaction has written to a projection table, a
+        // separate DDL transaction on that table would wait for it forever.
+        Map<Integer, ProjectionPlan> templatePlans = new HashMap<>();
+        for (Integer templateId : byTemplate.keySet()) {
+            templatePlans.put(templateId, plan(templateId));
+        }
+        for (Map.Entry<Integer, List<ProjectedSheet>> e : byTemplate.entrySet()) {
+            ProjectionPlan plan = templatePlans.get(e.getKey());
+            List<Object[]> rows = new ArrayList<>();
+            for (ProjectedSheet s : e.getValue()) {
+                rows.add(plan.row(s, objectMapper));
+            }
+            projectionDao.insertRows(plan.table, plan.columnNames(), rows);
+
+            for (ProjectionPlan.Child child : plan.children) {
+                List<Object[]> childRows = new ArrayList<>();
+                for (ProjectedSheet s : e.getValue()) {
+                    childRows.addAll(child.rows(s, objectMapper));
+                }
+                projectionDao.insertRows(child.table, child.columnNames(), childRows);
+            }
+        }
+    }
+
+    private ProjectionPlan plan(Integer templateId) {
+        ProjectionPlan plan = plans.get(templateId);
+        if (plan != null) {
+            return plan;
+        }
+
+        TemplateDTO template = templateCache.getTemplate(templateId);
+        ProjectionPlan built = ProjectionPlan.build(template.code, templateCache.getFields(templateId).fields);
+        // The DDL commits on its own (REQUIRES_NEW), so the sheet write never holds the ACCESS EXCLUSIVE locks
+        // of ALTER TABLE and a failed DDL does not roll the sheets back.
+        try {
+            ddlTransactionTemplate.execute(status -> createTables(built));
+        } catch (DataIntegrityViolationException ex) {
+            // Two first writers raced on CREATE TABLE IF NOT EXISTS (unique violation in pg_type); the other
+            // one has committed the table by now, so the IF NOT EXISTS statements pass on a second run.
+            ddlTransactionTemplate.execute(status -> createTables(built));
+        }
+        plans.put(templateId, built);
+        return built;
+    }
+
+    private Void createTables(ProjectionPlan plan) {
+        ensureColumns(plan.table, plan.columns);
+        for (ProjectionPlan.Child child : plan.children) {
+            projectionDao.createChildTable(child.table, plan.table);
+            ensureColumns(child.table, child.columns);
+        }
+        return null;
+    }
+
+    private void ensureColumns(String table, List<ProjectionPlan.Column> columns) {
+        Set<String> existing = projectionDao.findColumns(table);
+        for (ProjectionPlan.Column c : columns) {
+            if (!existing.contains(c.name)) {
+                projectionDao.addColumn(table, c.name, c.kind.sqlType);
+            }
+        }
+    }
+
+    private void requireEnabled() {
+        if (!enabled) {
+            throw new IllegalArgumentException("Projections are disabled (projection.enabled).");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.scalebackend.projection;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+// Identifiers are derived from template codes and field keys, reduced to [a-z0-9_] so they can be quoted
+// into DDL safely. A short hash keeps names that had to be rewritten or truncated apart.
+public final class ProjectionNames {
+
+    public static final String SCHEMA = "1scale_proj";
+
+    private ProjectionNames() {
+    }
+
+    public static String table(String templateCode) {
+        return "t_" + ident(templateCode, 40);
+    }
+
+    public static String childTable(String templateCode, String fieldKey) {
+        return "c_" + ident(templateCode, 24) + "__" + ident(fieldKey, 24);
+    }
+
+    public static String column(String fieldKey, String suffix) {
+        return ident(fieldKey, 40) + "_" + suffix;
+    }
+
+    public static String qualified(String name) {
+        return "\"" + SCHEMA + "\".\"" + name + "\"";
+    }
+
+    private static String ident(String raw, int maxLength) {
+        String lower = raw.toLowerCase(Locale.ROOT);
+        String clean = lower.replaceAll("[^a-z0-9_]", "_");
+        if (clean.equals(lower) && clean.length() <= maxLength) {
+            return clean;
+        }
+        String hash = DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8)).substring(0, 6);
+        return clean.substring(0, Math.min(clean.length(), maxLength - 7)) + "_" + hash;
+    }
+}
@@ -0,0 +1,222 @@
+package com.scalebackend.projection;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.TableColumnDTO;
+import org.springframework.jdbc.core.SqlParameterValue;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// How one template version's values map onto its code's projection table: one typed column per field
+// (named by key and type, so a key that changes type in a later version gets a new column instead of a
+// rewrite) and one child table per TABLE field with a row per table row.
+public class ProjectionPlan {
+
+    static final List<String> BASE_COLUMNS = Arrays.asList("sheet_id", "item_id", "template_id", "kind", "sheet_day");
+    static final List<String> CHILD_BASE_COLUMNS = Arrays.asList("sheet_id", "row_no");
+
+    public final String table;
+    public final List<Column> columns;
+    public final List<Child> children;
+
+    private ProjectionPlan(String table, List<Column> columns, List<Child> children) {
+        this.table = table;
+        this.columns = columns;
+        this.children = children;
+    }
+
+    public static ProjectionPlan build(String templateCode, List<FieldDefinitionDTO> fields) {
+        List<Column> columns = new ArrayList<>();
+        List<Child> children = new ArrayList<>();
+        Set<String> taken = new HashSet<>(BASE_COLUMNS);
+        for (FieldDefinitionDTO f : fields) {
+            String source = String.valueOf(f.id);
+            if (Boolean.TRUE.equals(f.isMulti)) {
+                add(columns, taken, new Column(source, ProjectionNames.column(f.key, "j"), ValueKind.JSON));
+            } else if ("TABLE".equals(f.type)) {
+                List<Column> cells = new ArrayList<>();
+                Set<String> cellsTaken = new HashSet<>(CHILD_BASE_COLUMNS);
+                if (f.tableSchema != null) {
+                    for (TableColumnDTO c : f.tableSchema.columns) {
+                        ValueKind kind = ValueKind.of(c.type);
+                        add(cells, cellsTaken, new Column(c.key, ProjectionNames.column(c.key, kind.suffix), kind));
+                    }
+                }
+                children.add(new Child(source, ProjectionNames.childTable(templateCode, f.key), cells));
+            } else {
+                ValueKind kind = ValueKind.of(f.type);
+                add(columns, taken, new Column(source, ProjectionNames.column(f.key, kind.suffix), kind));
+                if (kind == ValueKind.NUMBER && f.unitMode != null && !"NONE".equals(f.unitMode)) {
+                    add(columns, taken, new Column(source, ProjectionNames.column(f.key, "unit"), ValueKind.UNIT));
+                }
+            }
+        }
+        return new ProjectionPlan(ProjectionNames.table(templateCode), columns, children);
+    }
+
+    public List<String> columnNames() {
+        return names(BASE_COLUMNS, columns);
+    }
+
+    public Object[] row(ProjectedSheet sheet, ObjectMapper objectMapper) {
+        Object[] row = new Object[BASE_COLUMNS.size() + columns.size()];
+        row[0] = sheet.id;
+        row[1] = sheet.itemId;
+        row[2] = sheet.templateId;
+        row[3] = sheet.kind;
+        row[4] = Date.valueOf(sheet.day);
+        int i = BASE_COLUMNS.size();
+        for (Column c : columns) {
+            Object entry = sheet.values == null ? null : sheet.values.get(c.source);
+            Object raw = entry instanceof Map ? ((Map<?, ?>) entry).get(c.kind == ValueKind.UNIT ? "unit" : "value") : null;
+            row[i++] = c.kind.convert(raw, objectMapper);
+        }
+        return row;
+    }
+
+    public static class Column {
+        public final String source;
+        public final String name;
+        public final ValueKind kind;
+
+        Column(String source, String name, ValueKind kind) {
+            this.source = source;
+            this.name = name;
+            this.kind = kind;
+        }
+    }
+
+    public static class Child {
+        public final String source;
+        public final String table;
+        public final List<Column> columns;
+
+        Child(String source, String table, List<Column> columns) {
+            this.source = source;
+            this.table = table;
+            this.columns = columns;
+        }
+
+        public List<String> columnNames() {
+            return names(CHILD_BASE_COLUMNS, columns);
+        }
+
+        public List<Object[]> rows(ProjectedSheet sheet, ObjectMapper objectMapper) {
+            Object entry = sheet.values == null ? null : sheet.values.get(source);
+            Object value = entry instanceof Map ? ((Map<?, ?>) entry).get("value") : null;
+            Object tableRows = value instanceof Map ? ((Map<?, ?>) value).get("rows") : null;
+            if (!(tableRows instanceof List)) {
+                return Collections.emptyList();
+            }
+
+            List<Object[]> result = new ArrayList<>();
+            int rowNo = 0;
+            for (Object r : (List<?>) tableRows) {
+                rowNo++;
+                if (!(r instanceof Map)) {
+                    continue;
+                }
+                Object[] row = new Object[CHILD_BASE_COLUMNS.size() + columns.size()];
+                row[0] = sheet.id;
+                row[1] = rowNo;
+                int i = CHILD_BASE_COLUMNS.size();
+                for (Column c : columns) {
+                    row[i++] = c.kind.convert(((Map<?, ?>) r).get(c.source), objectMapper);
+                }
+                result.add(row);
+            }
+            return result;
+        }
+    }
+
+    public enum ValueKind {
+        NUMBER("n", "DOUBLE PRECISION", Types.DOUBLE),
+        DATE("d", "DATE", Types.DATE),
+        BOOLEAN("b", "BOOLEAN", Types.BOOLEAN),
+        TEXT("t", "TEXT", Types.VARCHAR),
+        UNIT("unit", "TEXT", Types.VARCHAR),
+        JSON("j", "JSONB", Types.OTHER);
+
+        public final String suffix;
+        public final String sqlType;
+        final int jdbcType;
+
+        ValueKind(String suffix, String sqlType, int jdbcType) {
+            this.suffix = suffix;
+            this.sqlType = sqlType;
+            this.jdbcType = jdbcType;
+        }
+
+        static ValueKind of(String fieldType) {
+            if ("NUMBER".equals(fieldType)) {
+                return NUMBER;
+            }
+            if ("DATE".equals(fieldType)) {
+                return DATE;
+            }
+            if ("BOOLEAN".equals(fieldType)) {
+                return BOOLEAN;
+            }
+            return TEXT;
+        }
+
+        // Values that do not fit the column type are projected as NULL rather than failing the sheet.
+        SqlParameterValue convert(Object raw, ObjectMapper objectMapper) {
+            return new SqlParameterValue(jdbcType, raw == null ? null : typed(raw, objectMapper));
+        }
+
+        private Object typed(Object raw, ObjectMapper objectMapper) {
+            switch (this) {
+                case NUMBER:
+                    if (raw instanceof Number) {
+                        return ((Number) raw).doubleValue();
+                    }
+                    try {
+                        return Double.valueOf(raw.toString().trim());
+                    } catch (NumberFormatException ex) {
+                        return null;
+                    }
+                case DATE:
+                    String text = raw.toString().trim();
+                    try {
+                        return Date.valueOf(text.length() > 10 ? text.substring(0, 10) : text);
+                    } catch (IllegalArgumentException ex) {
+                        return null;
+                    }
+                case BOOLEAN:
+                    return raw instanceof Boolean ? raw : null;
+                case JSON:
+                    try {
+                        return objectMapper.writeValueAsString(raw);
+                    } catch (Exception ex) {
+                        return null;
+                    }
+                default:
+                    return raw.toString();
+            }
+        }
+    }
+
+    // Keys that only differ in case or punctuation share a column; the first field wins.
+    private static void add(List<Column> columns, Set<String> taken, Column column) {
+        if (taken.add(column.name)) {
+            columns.add(column);
+        }
+    }
+
+    private static List<String> names(List<String> base, List<Column> columns) {
+        List<String> names = new ArrayList<>(base);
+        for (Column c : columns) {
+            names.add(c.name);
+        }
+        return names;
+    }
+}
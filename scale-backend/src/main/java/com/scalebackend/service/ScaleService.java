@@ -1,30 +1,56 @@
 package com.scalebackend.service;
 
+import com.scalebackend.cache.JsonPayload;
 import com.scalebackend.dto.*;
 import com.scalebackend.dto.request.CreateSheetRequestDTO;
 import com.scalebackend.dto.request.CreateTemplateVersionRequestDTO;
 import com.scalebackend.dto.request.SaveFieldsVersionRequestDTO;
+import com.scalebackend.dto.request.SheetExportRequestDTO;
+import com.scalebackend.dto.request.SheetPageRequestDTO;
+import com.scalebackend.dto.request.SheetSearchRequestDTO;
 
+import java.io.OutputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ScaleService {
     TypeDTO createType(TypeDTO dto);
 
     List<ItemTreeNodeDTO> getItemsTree();
+    JsonPayload getItemsTreePayload();
     ItemDTO getItemById(Integer itemId);
+    ItemWorkspaceDTO getItemWorkspace(Integer itemId, Integer historyLimit);
     List<String> listPartIds();
+    ItemTreePageDTO getPartNodes(String prefix, String cursor, Integer limit);
+    ItemTreePageDTO getSerialNodes(String partId, String prefix, String cursor, Integer limit);
+    ItemTreePageDTO getBridgeNodes(String partId, String partSn, String cursor, Integer limit);
 
     SheetDTO createSheet(CreateSheetRequestDTO request);
+    SheetBatchResultDTO createSheets(List<CreateSheetRequestDTO> requests);
     SheetDetailDTO getSheet(Integer sheetId);
+    JsonPayload getSheetPayload(Integer sheetId);
     List<SheetDTO> listItemSheets(Integer itemId, String kind);
+    void streamItemSheets(Integer itemId, String kind, Consumer<SheetDTO> consumer);
     List<SheetDTO> listInputOutputs(Integer inputSheetId);
+    SheetPageDTO getSheetPage(SheetPageRequestDTO request);
+    SheetPageDTO searchSheets(SheetSearchRequestDTO request);
+    FieldStatsDTO getFieldStats(String templateCode, String fieldKey, String from, String to);
+    void rebuildFieldStats();
+    List<ProjectionDTO> listProjections();
+    ProjectionDTO enableProjection(String templateCode);
+    FormulaRecomputeDTO recomputeFormulas(Integer templateId);
+    long exportSheets(SheetExportRequestDTO request, OutputStream out);
+    SheetHistoryPageDTO getSheetHistory(SheetPageRequestDTO request);
 
     List<TemplateDTO> getTemplates(String kind);
+    JsonPayload getTemplatesPayload(String kind);
     List<FieldDefinitionDTO> getTemplateFields(Integer templateId);
+    JsonPayload getTemplateFieldsPayload(Integer templateId);
     TemplateDTO createTemplateVersion(CreateTemplateVersionRequestDTO request);
     TemplateDTO saveFieldsAsNewVersion(SaveFieldsVersionRequestDTO request);
 
     List<PartTemplateMappingDTO> listPartTemplateMappings();
+    void streamPartTemplateMappings(Consumer<PartTemplateMappingDTO> consumer);
     TemplatesForPartDTO getTemplatesForPart(String partId);
     PartTemplateMappingDTO savePartTemplateMapping(PartTemplateMappingDTO dto);
 }
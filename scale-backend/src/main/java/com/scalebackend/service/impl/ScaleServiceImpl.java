@@ -1,20 +1,53 @@
 package com.scalebackend.service.impl;
 
+import com.scalebackend.cache.ItemTreeCache;
+import com.scalebackend.cache.JsonPayload;
+import com.scalebackend.cache.SheetCache;
+import com.scalebackend.cache.SheetValidatorCache;
+import com.scalebackend.cache.TemplateCache;
 import com.scalebackend.dao.*;
 import com.scalebackend.dto.*;
 import com.scalebackend.dto.request.CreateSheetRequestDTO;
 import com.scalebackend.dto.request.CreateTemplateVersionRequestDTO;
 import com.scalebackend.dto.request.SaveFieldsVersionRequestDTO;
+import com.scalebackend.dto.request.SheetExportRequestDTO;
+import com.scalebackend.dto.request.SheetPageRequestDTO;
+import com.scalebackend.dto.request.SheetSearchRequestDTO;
+import com.scalebackend.dto.request.SheetValuePredicateDTO;
+import com.scalebackend.formula.FormulaEngine;
+import com.scalebackend.projection.ProjectionEngine;
 import com.scalebackend.service.ScaleService;
+import com.scalebackend.stats.FieldStatsRollup;
+import com.scalebackend.tracing.Tracer;
+import com.scalebackend.validation.SheetValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Service
+@Primary
 public class ScaleServiceImpl implements ScaleService {
 
+    private static final int MAX_SEARCH_PREDICATES = 20;
+
     @Autowired
     private TypeDao typeDao;
     @Autowired
@@ -25,6 +58,40 @@ public class ScaleServiceImpl implements ScaleService {
     private TemplateDao templateDao;
     @Autowired
     private PartTemplateMappingDao partTemplateMappingDao;
+    @Autowired
+    private ItemTreeCache itemTreeCache;
+    @Autowired
+    private TemplateCache templateCache;
+    @Autowired
+    private SheetCache sheetCache;
+    @Autowired
+    private SheetValidatorCache sheetValidators;
+    @Autowired
+    private FieldStatsRollup fieldStatsRollup;
+    @Autowired
+    private ProjectionEngine projectionEngine;
+    @Autowired
+    private OutputOutboxDao outputOutboxDao;
+    @Autowired
+    private FormulaEngine formulaEngine;
+    @Autowired
+    private SheetExportDao sheetExportDao;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Autowired
+    @Qualifier("workspaceExecutor")
+    private Executor workspaceExecutor;
+
+    @Value("${sheets.batch.maxSize}")
+    private int maxBatchSize;
+
+    @Value("${workspace.timeoutMs}")
+    private long workspaceTimeoutMs;
+
+    @Value("${outputs.generation.enabled}")
+    private boolean outputGenerationEnabled;
 
     @Override
     @Transactional
@@ -34,7 +101,12 @@ public class ScaleServiceImpl implements ScaleService {
 
     @Override
     public List<ItemTreeNodeDTO> getItemsTree() {
-        return itemDao.findItemTree();
+        return itemTreeCache.get().tree;
+    }
+
+    @Override
+    public JsonPayload getItemsTreePayload() {
+        return itemTreeCache.get().payload;
     }
 
     @Override
@@ -42,15 +114,150 @@ public class ScaleServiceImpl implements ScaleService {
         return itemDao.findById(itemId);
     }
 
+    // The reads run in parallel on their own connections, outside any transaction, so the parts of the response
+    // are not one snapshot: a part rule or sheet written meanwhile may be in one part and not yet in another.
+    // The client refetches the workspace after its own writes; the trace goes along to the worker threads.
+    @Override
+    public ItemWorkspaceDTO getItemWorkspace(Integer itemId, Integer historyLimit) {
+        SheetPageRequestDTO historyRequest = new SheetPageRequestDTO();
+        historyRequest.itemId = itemId;
+        historyRequest.limit = historyLimit;
+
+        Executor executor = tracer.propagating(workspaceExecutor);
+        CompletableFuture<ItemDTO> item = CompletableFuture.supplyAsync(() -> itemDao.findById(itemId), executor);
+        CompletableFuture<TemplatesForPartDTO> rules = item.thenApplyAsync(i -> i == null || i.partId == null
+                ? new TemplatesForPartDTO()
+                : partTemplateMappingDao.getTemplatesForPart(i.partId), executor);
+        CompletableFuture<List<TemplateDTO>> templates = CompletableFuture.supplyAsync(() -> templateCache.getTemplates(null), executor);
+        CompletableFuture<SheetHistoryPageDTO> history = CompletableFuture.supplyAsync(() -> buildSheetHistory(historyRequest), executor);
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(rules, templates, history);
+        try {
+            all.get(workspaceTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            rules.cancel(true);
+            templates.cancel(true);
+            history.cancel(true);
+            throw new IllegalStateException("Item workspace could not be loaded in " + workspaceTimeoutMs + " ms.");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Item workspace loading was interrupted.");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause() instanceof CompletionException && ex.getCause().getCause() != null ? ex.getCause().getCause() : ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Item workspace could not be loaded.", cause);
+        }
+
+        ItemWorkspaceDTO workspace = new ItemWorkspaceDTO();
+        workspace.item = item.join();
+        workspace.templatesForPart = rules.join();
+        workspace.templates = templates.join();
+        workspace.history = history.join();
+
+        Map<Integer, TemplateDTO> byId = new HashMap<>();
+        for (TemplateDTO t : workspace.templates) {
+            byId.put(t.id, t);
+        }
+        for (Integer id : workspace.templatesForPart.inputTemplateIds) {
+            if (byId.containsKey(id)) {
+                workspace.inputTemplates.add(byId.get(id));
+            }
+        }
+        for (Integer id : workspace.templatesForPart.outputTemplateIds) {
+            if (byId.containsKey(id)) {
+                workspace.outputTemplates.add(byId.get(id));
+            }
+        }
+        return workspace;
+    }
+
     @Override
     public List<String> listPartIds() {
         return itemDao.listPartIds();
     }
 
+    @Override
+    public ItemTreePageDTO getPartNodes(String prefix, String cursor, Integer limit) {
+        return itemDao.findPartNodes(prefix, cursor, limit);
+    }
+
+    @Override
+    public ItemTreePageDTO getSerialNodes(String partId, String prefix, String cursor, Integer limit) {
+        return itemDao.findSerialNodes(partId, prefix, cursor, limit);
+    }
+
+    @Override
+    public ItemTreePageDTO getBridgeNodes(String partId, String partSn, String cursor, Integer limit) {
+        return itemDao.findBridgeNodes(partId, partSn, cursor, limit);
+    }
+
     @Override
     @Transactional
     public SheetDTO createSheet(CreateSheetRequestDTO request) {
-        return sheetDao.createSheet(request);
+        formulaEngine.apply(Collections.singletonList(request));
+        sheetValidators.validate(request);
+        SheetDTO created = sheetDao.createSheet(request);
+        fieldStatsRollup.record(Collections.singletonList(request), Collections.singletonList(created));
+        projectionEngine.project(Collections.singletonList(request), Collections.singletonList(created));
+        enqueueOutputs(Collections.singletonList(created));
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public SheetBatchResultDTO createSheets(List<CreateSheetRequestDTO> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("No sheets given.");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " sheets can be created in one batch.");
+        }
+
+        formulaEngine.apply(requests);
+        for (int i = 0; i < requests.size(); i++) {
+            List<String> errors = sheetValidators.errors(requests.get(i));
+            if (!errors.isEmpty()) {
+                throw new SheetValidationException(Collections.singletonList("sheet " + i + ": " + String.join("; ", errors)));
+            }
+        }
+
+        List<SheetDTO> created = sheetDao.createSheets(requests);
+        fieldStatsRollup.record(requests, created);
+        projectionEngine.project(requests, created);
+        enqueueOutputs(created);
+        SheetBatchResultDTO result = new SheetBatchResultDTO();
+        for (int i = 0; i < created.size(); i++) {
+            SheetBatchItemDTO item = new SheetBatchItemDTO();
+            item.index = i;
+            item.sheet = created.get(i);
+            if (item.sheet == null) {
+                item.status = "CONFLICT";
+                result.conflicts++;
+            } else {
+                item.status = "CREATED";
+                result.created++;
+            }
+            result.items.add(item);
+        }
+        return result;
+    }
+
+    // Queued in the creating transaction, so an input sheet is never committed without its output job.
+    private void enqueueOutputs(List<SheetDTO> created) {
+        if (!outputGenerationEnabled) {
+            return;
+        }
+        List<Integer> inputSheetIds = new ArrayList<>();
+        for (SheetDTO sheet : created) {
+            if (sheet != null && sheet.parentSheetId == null) {
+                inputSheetIds.add(sheet.id);
+            }
+        }
+        if (!inputSheetIds.isEmpty()) {
+            outputOutboxDao.enqueue(inputSheetIds);
+        }
     }
 
     @Override
@@ -58,36 +265,214 @@ public class ScaleServiceImpl implements ScaleService {
         return sheetDao.getSheet(sheetId);
     }
 
+    @Override
+    public JsonPayload getSheetPayload(Integer sheetId) {
+        return sheetCache.getPayload(sheetId);
+    }
+
     @Override
     public List<SheetDTO> listItemSheets(Integer itemId, String kind) {
         return sheetDao.listItemSheets(itemId, kind);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamItemSheets(Integer itemId, String kind, Consumer<SheetDTO> consumer) {
+        sheetDao.streamItemSheets(itemId, kind, consumer);
+    }
+
     @Override
     public List<SheetDTO> listInputOutputs(Integer inputSheetId) {
         return sheetDao.listInputOutputs(inputSheetId);
     }
 
+    @Override
+    public SheetPageDTO getSheetPage(SheetPageRequestDTO request) {
+        return sheetDao.findSheetPage(request);
+    }
+
+    @Override
+    public SheetPageDTO searchSheets(SheetSearchRequestDTO request) {
+        List<SheetValuePredicateDTO> predicates = request.predicates;
+        if (predicates == null || predicates.isEmpty()) {
+            throw new IllegalArgumentException("At least one value predicate is required.");
+        }
+        if (predicates.size() > MAX_SEARCH_PREDICATES) {
+            throw new IllegalArgumentException("At most " + MAX_SEARCH_PREDICATES + " value predicates are allowed.");
+        }
+
+        // Field ids differ in every template version, so predicates name a field key and are matched in every
+        // version of the template code (only in templateId when it is given), as the field stats are.
+        String code = request.templateCode == null ? "" : request.templateCode.trim();
+        if (request.templateId != null) {
+            TemplateDTO template = templateCache.getTemplate(request.templateId);
+            if (template == null) {
+                throw new IllegalArgumentException("Template " + request.templateId + " does not exist.");
+            }
+            if (!code.isEmpty() && !code.equals(template.code)) {
+                throw new IllegalArgumentException("Template " + request.templateId + " is not a version of " + code + ".");
+            }
+            code = template.code;
+        }
+        if (code.isEmpty()) {
+            throw new IllegalArgumentException("templateCode or templateId is required.");
+        }
+
+        List<Integer> templateIds = new ArrayList<>();
+        Map<String, List<Integer>> fieldIdsByKey = new HashMap<>();
+        for (TemplateDTO t : templateCache.getTemplates(null)) {
+            if (!code.equals(t.code) || (request.templateId != null && !request.templateId.equals(t.id))) {
+                continue;
+            }
+            templateIds.add(t.id);
+            for (FieldDefinitionDTO f : templateCache.getFields(t.id).fields) {
+                fieldIdsByKey.computeIfAbsent(f.key, k -> new ArrayList<>()).add(f.id);
+            }
+        }
+        if (templateIds.isEmpty()) {
+            throw new IllegalArgumentException("Unknown template code: " + code);
+        }
+
+        List<List<Integer>> fieldIds = new ArrayList<>();
+        for (SheetValuePredicateDTO p : predicates) {
+            if (p == null || p.fieldKey == null || p.fieldKey.trim().isEmpty()) {
+                throw new IllegalArgumentException("Predicate fieldKey is required.");
+            }
+            List<Integer> ids = fieldIdsByKey.get(p.fieldKey.trim());
+            if (ids == null) {
+                throw new IllegalArgumentException("Template " + code + " has no field " + p.fieldKey.trim() + ".");
+            }
+            fieldIds.add(ids);
+        }
+        return sheetDao.searchSheets(request, templateIds, fieldIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FieldStatsDTO getFieldStats(String templateCode, String fieldKey, String from, String to) {
+        if (templateCode == null || templateCode.trim().isEmpty() || fieldKey == null || fieldKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("templateCode and fieldKey are required.");
+        }
+        return fieldStatsRollup.getStats(templateCode.trim(), fieldKey.trim(), parseDay(from), parseDay(to));
+    }
+
+    @Override
+    @Transactional
+    public void rebuildFieldStats() {
+        fieldStatsRollup.rebuild();
+    }
+
+    @Override
+    public List<ProjectionDTO> listProjections() {
+        return projectionEngine.list();
+    }
+
+    @Override
+    @Transactional
+    public ProjectionDTO enableProjection(String templateCode) {
+        if (templateCode == null || templateCode.trim().isEmpty()) {
+            throw new IllegalArgumentException("templateCode is required.");
+        }
+        return projectionEngine.enable(templateCode.trim());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FormulaRecomputeDTO recomputeFormulas(Integer templateId) {
+        if (templateId == null) {
+            throw new IllegalArgumentException("templateId is required.");
+        }
+        return formulaEngine.recompute(templateId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportSheets(SheetExportRequestDTO request, OutputStream out) {
+        request.format = request.format == null || request.format.trim().isEmpty() ? "csv" : request.format.trim().toLowerCase();
+        if (!"csv".equals(request.format) && !"ndjson".equals(request.format)) {
+            throw new IllegalArgumentException("format must be csv or ndjson.");
+        }
+        request.partId = trimToNull(request.partId);
+        request.templateCode = trimToNull(request.templateCode);
+        request.kind = trimToNull(request.kind);
+        if (request.kind != null && !"INPUT".equals(request.kind) && !"OUTPUT".equals(request.kind)) {
+            throw new IllegalArgumentException("kind must be INPUT or OUTPUT.");
+        }
+        LocalDate from = parseDay(request.from);
+        LocalDate to = parseDay(request.to);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to.");
+        }
+        request.from = from == null ? null : from.toString();
+        request.to = to == null ? null : to.toString();
+        return sheetExportDao.exportSheets(request, out);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SheetHistoryPageDTO getSheetHistory(SheetPageRequestDTO request) {
+        return buildSheetHistory(request);
+    }
+
+    private SheetHistoryPageDTO buildSheetHistory(SheetPageRequestDTO request) {
+        request.kind = "INPUT";
+        request.parentSheetId = null;
+        SheetPageDTO inputs = sheetDao.findSheetPage(request);
+
+        List<Integer> inputIds = new ArrayList<>(inputs.sheets.size());
+        for (SheetDTO input : inputs.sheets) {
+            inputIds.add(input.id);
+        }
+        Map<Integer, List<SheetDTO>> outputs = sheetDao.listOutputsByInput(inputIds);
+
+        SheetHistoryPageDTO page = new SheetHistoryPageDTO();
+        page.nextCursor = inputs.nextCursor;
+        for (SheetDTO input : inputs.sheets) {
+            SheetHistoryDTO record = new SheetHistoryDTO();
+            record.input = input;
+            record.outputs = outputs.getOrDefault(input.id, new ArrayList<>());
+            page.records.add(record);
+        }
+        return page;
+    }
+
     @Override
     public List<TemplateDTO> getTemplates(String kind) {
-        return templateDao.listTemplates(kind);
+        return templateCache.getTemplates(kind);
+    }
+
+    @Override
+    public JsonPayload getTemplatesPayload(String kind) {
+        return templateCache.getTemplatesPayload(kind);
     }
 
     @Override
     public List<FieldDefinitionDTO> getTemplateFields(Integer templateId) {
-        return templateDao.listTemplateFields(templateId);
+        return templateCache.getFields(templateId).fields;
+    }
+
+    @Override
+    public JsonPayload getTemplateFieldsPayload(Integer templateId) {
+        return templateCache.getFields(templateId).payload;
     }
 
     @Override
     @Transactional
     public TemplateDTO createTemplateVersion(CreateTemplateVersionRequestDTO request) {
-        return templateDao.createTemplateVersion(request);
+        TemplateDTO created = templateDao.createTemplateVersion(request);
+        templateCache.invalidateAfterCommit(created == null ? null : created.id);
+        return created;
     }
 
     @Override
     @Transactional
     public TemplateDTO saveFieldsAsNewVersion(SaveFieldsVersionRequestDTO request) {
-        return templateDao.saveFieldsAsNewVersion(request);
+        if (request.fields != null) {
+            formulaEngine.check(request.fields);
+        }
+        TemplateDTO created = templateDao.saveFieldsAsNewVersion(request);
+        templateCache.invalidateAfterCommit(created == null ? null : created.id);
+        return created;
     }
 
     @Override
@@ -95,6 +480,12 @@ public class ScaleServiceImpl implements ScaleService {
         return partTemplateMappingDao.listMappings();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamPartTemplateMappings(Consumer<PartTemplateMappingDTO> consumer) {
+        partTemplateMappingDao.streamMappings(consumer);
+    }
+
     @Override
     public TemplatesForPartDTO getTemplatesForPart(String partId) {
         return partTemplateMappingDao.getTemplatesForPart(partId);
@@ -105,4 +496,15 @@ public class ScaleServiceImpl implements ScaleService {
     public PartTemplateMappingDTO savePartTemplateMapping(PartTemplateMappingDTO dto) {
         return partTemplateMappingDao.saveMapping(dto);
     }
+
+    private static String trimToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private LocalDate parseDay(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return java.sql.Date.valueOf(value.trim()).toLocalDate();
+    }
 }
@@ -0,0 +1,46 @@
+package com.scalebackend.stats;
+
+// Count, sum and m2 (sum of squared deviations from the mean) are updated with Welford's method and merged
+// with Chan's formula, so the variance does not cancel out for large values with a small spread.
+public class FieldStats {
+    public long count;
+    public double sum;
+    public double m2;
+    public double min = Double.POSITIVE_INFINITY;
+    public double max = Double.NEGATIVE_INFINITY;
+    public final LogHistogram histogram = new LogHistogram();
+
+    public void add(double value) {
+        double delta = count == 0 ? 0 : value - sum / count;
+        count++;
+        sum += value;
+        m2 += delta * (value - sum / count);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        histogram.add(value);
+    }
+
+    public void merge(FieldStats other) {
+        if (count > 0 && other.count > 0) {
+            double delta = other.sum / other.count - sum / count;
+            m2 += other.m2 + delta * delta * count * other.count / (count + other.count);
+        } else {
+            m2 += other.m2;
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        histogram.merge(other.histogram);
+    }
+
+    public double stddev() {
+        return Math.sqrt(Math.max(0d, m2 / count));
+    }
+
+    public Double quantile(double q) {
+        Double value = histogram.quantile(q);
+        // bucket midpoints can overshoot the observed extremes
+        return value == null ? null : Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,45 @@
+package com.scalebackend.stats;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Objects;
+
+public final class FieldStatsKey implements Comparable<FieldStatsKey> {
+
+    private static final Comparator<FieldStatsKey> ORDER = Comparator
+            .comparing((FieldStatsKey k) -> k.templateCode)
+            .thenComparing(k -> k.fieldKey)
+            .thenComparing(k -> k.day);
+
+    public final String templateCode;
+    public final String fieldKey;
+    public final LocalDate day;
+
+    public FieldStatsKey(String templateCode, String fieldKey, LocalDate day) {
+        this.templateCode = templateCode;
+        this.fieldKey = fieldKey;
+        this.day = day;
+    }
+
+    @Override
+    public int compareTo(FieldStatsKey other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FieldStatsKey)) {
+            return false;
+        }
+        FieldStatsKey k = (FieldStatsKey) o;
+        return templateCode.equals(k.templateCode) && fieldKey.equals(k.fieldKey) && day.equals(k.day);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(templateCode, fieldKey, day);
+    }
+}
@@ -0,0 +1,112 @@
+package com.scalebackend.stats;
+
+import com.scalebackend.cache.TemplateCache;
+import com.scalebackend.dao.FieldStatsDao;
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.FieldStatsDTO;
+import com.scalebackend.dto.FieldStatsDayDTO;
+import com.scalebackend.dto.SheetDTO;
+import com.scalebackend.dto.TemplateDTO;
+import com.scalebackend.dto.request.CreateSheetRequestDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Keeps per-(template code, field key, day) aggregates of NUMBER fields. Sheets are folded in by the
+// transaction that creates them, so the rollup commits or rolls back together with the sheets.
+@Component
+public class FieldStatsRollup {
+
+    @Autowired
+    private TemplateCache templateCache;
+
+    @Autowired
+    private FieldStatsDao fieldStatsDao;
+
+    public void record(List<CreateSheetRequestDTO> requests, List<SheetDTO> created) {
+        SortedMap<FieldStatsKey, FieldStats> stats = new TreeMap<>();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (int i = 0; i < requests.size(); i++) {
+            if (created.get(i) != null) {
+                collect(stats, requests.get(i), today);
+            }
+        }
+        if (!stats.isEmpty()) {
+            fieldStatsDao.add(stats);
+        }
+    }
+
+    public FieldStatsDTO getStats(String templateCode, String fieldKey, LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, FieldStats> daily = fieldStatsDao.findDaily(templateCode, fieldKey, from, to);
+
+        FieldStatsDTO dto = new FieldStatsDTO();
+        dto.templateCode = templateCode;
+        dto.fieldKey = fieldKey;
+        dto.from = from == null ? null : from.toString();
+        dto.to = to == null ? null : to.toString();
+
+        FieldStats total = new FieldStats();
+        for (Map.Entry<LocalDate, FieldStats> e : daily.entrySet()) {
+            FieldStats s = e.getValue();
+            total.merge(s);
+
+            FieldStatsDayDTO day = new FieldStatsDayDTO();
+            day.day = e.getKey().toString();
+            day.count = s.count;
+            day.min = s.min;
+            day.max = s.max;
+            day.mean = s.sum / s.count;
+            day.p50 = s.quantile(0.5);
+            day.p95 = s.quantile(0.95);
+            dto.days.add(day);
+        }
+
+        dto.count = total.count;
+        if (total.count > 0) {
+            dto.min = total.min;
+            dto.max = total.max;
+            dto.mean = total.sum / total.count;
+            dto.stddev = total.stddev();
+            dto.p50 = total.quantile(0.5);
+            dto.p90 = total.quantile(0.9);
+            dto.p95 = total.quantile(0.95);
+            dto.p99 = total.quantile(0.99);
+        }
+        return dto;
+    }
+
+    public void rebuild() {
+        fieldStatsDao.rebuild();
+    }
+
+    private void collect(SortedMap<FieldStatsKey, FieldStats> stats, CreateSheetRequestDTO request, LocalDate today) {
+        if (request.values == null || request.values.isEmpty()) {
+            return;
+        }
+        TemplateDTO template = templateCache.getTemplate(request.templateId);
+        if (template == null) {
+            return;
+        }
+        // Same day as the sheet listing sort key: sheet_date, else the UTC creation date.
+        LocalDate day = request.sheetDate == null || request.sheetDate.trim().isEmpty()
+                ? today : LocalDate.parse(request.sheetDate.trim());
+
+        for (FieldDefinitionDTO f : templateCache.getFields(request.templateId).fields) {
+            if (!"NUMBER".equals(f.type) || Boolean.TRUE.equals(f.isMulti)) {
+                continue;
+            }
+            Object entry = request.values.get(String.valueOf(f.id));
+            Object value = entry instanceof Map ? ((Map<?, ?>) entry).get("value") : null;
+            if (value instanceof Number) {
+                stats.computeIfAbsent(new FieldStatsKey(template.code, f.key, day), k -> new FieldStats())
+                        .add(((Number) value).doubleValue());
+            }
+        }
+    }
+}
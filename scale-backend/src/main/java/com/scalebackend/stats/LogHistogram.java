@@ -0,0 +1,76 @@
+package com.scalebackend.stats;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Mergeable quantile sketch: values fall into logarithmic buckets with 1% relative width, so two
+// histograms merge by adding bucket counts and any quantile is accurate to within 1% of its value.
+// Bucket ids sort in value order (negative values below 0, the zero bucket at 0, positives above).
+// Stored rollups depend on these constants; changing them requires a rollup rebuild.
+public class LogHistogram {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    public static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    public static final double LOG_GAMMA = Math.log(GAMMA);
+    public static final double ZERO_THRESHOLD = 1e-9;
+    public static final int BUCKET_OFFSET = 1 << 20;
+
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long total;
+
+    public static int bucketOf(double value) {
+        double abs = Math.abs(value);
+        if (abs < ZERO_THRESHOLD) {
+            return 0;
+        }
+        int bucket = BUCKET_OFFSET + (int) Math.ceil(Math.log(abs) / LOG_GAMMA);
+        return value > 0 ? bucket : -bucket;
+    }
+
+    public static double valueOf(int bucket) {
+        if (bucket == 0) {
+            return 0d;
+        }
+        int index = Math.abs(bucket) - BUCKET_OFFSET;
+        double value = 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+        return bucket > 0 ? value : -value;
+    }
+
+    public void add(double value) {
+        add(bucketOf(value), 1);
+    }
+
+    public void add(int bucket, long count) {
+        counts.merge(bucket, count, Long::sum);
+        total += count;
+    }
+
+    public void merge(LogHistogram other) {
+        for (Map.Entry<Integer, Long> e : other.counts.entrySet()) {
+            add(e.getKey(), e.getValue());
+        }
+    }
+
+    public Map<Integer, Long> buckets() {
+        return counts;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public Double quantile(double q) {
+        if (total == 0) {
+            return null;
+        }
+        long rank = (long) Math.floor(q * (total - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> e : counts.entrySet()) {
+            seen += e.getValue();
+            if (seen > rank) {
+                return valueOf(e.getKey());
+            }
+        }
+        return valueOf(counts.lastKey());
+    }
+}
@@ -0,0 +1,44 @@
+package com.scalebackend.tracing;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+// One JDBC statement (all executions of it until it is closed) or one connection acquisition.
+public final class Span {
+
+    public static final String CONNECTION = "connection";
+    public static final String STATEMENT = "statement";
+
+    public final String kind;
+    public final long startNanos;
+    public String sql;
+    public int binds;
+    public int batches;
+    public int executions;
+    public long rows;
+    public long executeNanos;
+    public long fetchNanos;
+    public String error;
+
+    // setter calls by parameter index, kept only when slow statements are EXPLAINed
+    Map<Integer, BindCall> bindCalls;
+
+    Span(String kind, long startNanos) {
+        this.kind = kind;
+        this.startNanos = startNanos;
+    }
+
+    public long totalNanos() {
+        return executeNanos + fetchNanos;
+    }
+
+    static final class BindCall {
+        final Method method;
+        final Object[] args;
+
+        BindCall(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+}
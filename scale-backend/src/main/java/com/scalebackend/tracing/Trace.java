@@ -0,0 +1,44 @@
+package com.scalebackend.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Spans of one HTTP request, added by the thread currently serving it. An async handler that timed out may
+// still be adding spans while the request ends, so spans are read through a snapshot.
+public final class Trace {
+
+    public final String requestId;
+    public final String handler;
+    public final String request;
+    public final long startNanos = System.nanoTime();
+    public final long startMillis = System.currentTimeMillis();
+    private final List<Span> spans = new ArrayList<>();
+    int droppedSpans;
+    int statements;
+    long sqlNanos;
+    long connectionNanos;
+
+    Trace(String requestId, String handler, String request) {
+        this.requestId = requestId;
+        this.handler = handler;
+        this.request = request;
+    }
+
+    synchronized void add(Span span, int maxSpans) {
+        if (Span.STATEMENT.equals(span.kind)) {
+            statements++;
+            sqlNanos += span.totalNanos();
+        } else {
+            connectionNanos += span.executeNanos;
+        }
+        if (spans.size() < maxSpans) {
+            spans.add(span);
+        } else {
+            droppedSpans++;
+        }
+    }
+
+    synchronized List<Span> spans() {
+        return new ArrayList<>(spans);
+    }
+}
@@ -0,0 +1,330 @@
+package com.scalebackend.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Request traces and the slow log. A request over tracing.slowRequestMs and a statement over
+// tracing.slowStatementMs are written as one JSON line each to the "scale.slow" logger; with
+// tracing.explain.enabled a slow SELECT is re-run under EXPLAIN (ANALYZE, BUFFERS) in a read-only
+// transaction on another connection. With tracing.export.file set, every finished trace is appended to
+// that file as one JSON line.
+@Component("tracer")
+public class Tracer {
+
+    private static final Logger log = LoggerFactory.getLogger(Tracer.class);
+    private static final Logger slowLog = LoggerFactory.getLogger("scale.slow");
+
+    public static final String MDC_REQUEST_ID = "requestId";
+
+    private static final int MAX_SQL_CHARS = 2000;
+    private static final int SLOWEST_STATEMENTS = 5;
+
+    @Autowired
+    @Qualifier("poolDataSource")
+    private DataSource poolDataSource;
+
+    @Autowired
+    @Qualifier("explainExecutor")
+    private Executor explainExecutor;
+
+    @Value("${tracing.enabled}")
+    private boolean enabled;
+
+    @Value("${tracing.slowRequestMs}")
+    private long slowRequestMs;
+
+    @Value("${tracing.slowStatementMs}")
+    private long slowStatementMs;
+
+    @Value("${tracing.maxSpans}")
+    private int maxSpans;
+
+    @Value("${tracing.explain.enabled}")
+    private boolean explainEnabled;
+
+    @Value("${tracing.explain.cooldownMs}")
+    private long explainCooldownMs;
+
+    @Value("${tracing.export.file}")
+    private String exportFile;
+
+    private final ThreadLocal<Trace> current = new ThreadLocal<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> exportQueue;
+    private final LongAdder droppedExports = new LongAdder();
+
+    public Tracer(@Value("${tracing.export.queueSize}") int exportQueueSize) {
+        this.exportQueue = new ArrayBlockingQueue<>(exportQueueSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    boolean isExplainEnabled() {
+        return explainEnabled;
+    }
+
+    public Trace begin(String requestId, String handler, String request) {
+        Trace trace = new Trace(requestId, handler, request);
+        attach(trace);
+        return trace;
+    }
+
+    // Binds a trace to the current thread, e.g. when an async request continues on another thread.
+    public void attach(Trace trace) {
+        current.set(trace);
+        MDC.put(MDC_REQUEST_ID, trace.requestId);
+    }
+
+    public Trace detach() {
+        Trace trace = current.get();
+        current.remove();
+        MDC.remove(MDC_REQUEST_ID);
+        return trace;
+    }
+
+    public Trace current() {
+        return current.get();
+    }
+
+    // Runs tasks on executor under the trace current where they are submitted, restoring the running thread's
+    // own trace afterwards (a CALLER_RUNS executor may run them on the submitting thread).
+    public Executor propagating(Executor executor) {
+        return task -> {
+            Trace trace = current();
+            executor.execute(trace == null ? task : () -> {
+                Trace previous = current();
+                attach(trace);
+                try {
+                    task.run();
+                } finally {
+                    if (previous != null) {
+                        attach(previous);
+                    } else {
+                        detach();
+                    }
+                }
+            });
+        };
+    }
+
+    public void end(Trace trace, int status) {
+        long totalNanos = System.nanoTime() - trace.startNanos;
+        if (totalNanos >= TimeUnit.MILLISECONDS.toNanos(slowRequestMs)) {
+            write(slowRequest(trace, status, totalNanos));
+        }
+        if (!exportFile.isEmpty()) {
+            Map<String, Object> line = slowRequest(trace, status, totalNanos);
+            line.remove("type");
+            line.remove("slowest");
+            List<Span> traced = trace.spans();
+            List<Map<String, Object>> spans = new ArrayList<>(traced.size());
+            for (Span span : traced) {
+                spans.add(spanFields(span, trace));
+            }
+            line.put("spans", spans);
+            try {
+                if (!exportQueue.offer(objectMapper.writeValueAsString(line))) {
+                    droppedExports.increment();
+                }
+            } catch (IOException ex) {
+                log.warn("trace {} could not be encoded: {}", trace.requestId, ex.getMessage());
+            }
+        }
+    }
+
+    void finished(Span span) {
+        Trace trace = current.get();
+        if (trace != null) {
+            trace.add(span, maxSpans);
+        }
+        if (Span.STATEMENT.equals(span.kind) && span.totalNanos() >= TimeUnit.MILLISECONDS.toNanos(slowStatementMs)) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("type", "statement");
+            line.put("requestId", trace == null ? null : trace.requestId);
+            line.put("handler", trace == null ? Thread.currentThread().getName() : trace.handler);
+            line.putAll(spanFields(span, null));
+            write(line);
+            if (explainEnabled && span.sql != null && isSelect(span.sql) && claimExplain(span.sql)) {
+                String requestId = trace == null ? null : trace.requestId;
+                explainExecutor.execute(() -> explain(requestId, span));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void flushExports() {
+        if (exportFile.isEmpty() || exportQueue.isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        exportQueue.drainTo(lines);
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(exportFile), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        } catch (IOException ex) {
+            log.warn("{} traces could not be written to {}: {}", lines.size(), exportFile, ex.getMessage());
+        }
+        long dropped = droppedExports.sumThenReset();
+        if (dropped > 0) {
+            log.warn("{} traces were dropped because the export queue was full", dropped);
+        }
+    }
+
+    private Map<String, Object> slowRequest(Trace trace, int status, long totalNanos) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("type", "request");
+        line.put("requestId", trace.requestId);
+        line.put("handler", trace.handler);
+        line.put("request", trace.request);
+        line.put("status", status);
+        line.put("startedAt", trace.startMillis);
+        line.put("ms", millis(totalNanos));
+        line.put("connectionMs", millis(trace.connectionNanos));
+        line.put("sqlMs", millis(trace.sqlNanos));
+        // whatever is neither waiting for a connection nor in JDBC: mostly serialization and application code
+        line.put("otherMs", millis(Math.max(0, totalNanos - trace.connectionNanos - trace.sqlNanos)));
+        line.put("statements", trace.statements);
+        line.put("droppedSpans", trace.droppedSpans);
+
+        List<Span> slowest = new ArrayList<>();
+        for (Span span : trace.spans()) {
+            if (Span.STATEMENT.equals(span.kind)) {
+                slowest.add(span);
+            }
+        }
+        slowest.sort(Comparator.comparingLong(Span::totalNanos).reversed());
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (Span span : slowest.subList(0, Math.min(SLOWEST_STATEMENTS, slowest.size()))) {
+            top.add(spanFields(span, trace));
+        }
+        line.put("slowest", top);
+        return line;
+    }
+
+    private Map<String, Object> spanFields(Span span, Trace trace) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("kind", span.kind);
+        if (trace != null) {
+            fields.put("offsetMs", millis(span.startNanos - trace.startNanos));
+        }
+        if (Span.CONNECTION.equals(span.kind)) {
+            fields.put("ms", millis(span.executeNanos));
+            return fields;
+        }
+        fields.put("sql", truncate(span.sql));
+        fields.put("binds", span.binds);
+        fields.put("batches", span.batches);
+        fields.put("executions", span.executions);
+        fields.put("rows", span.rows);
+        fields.put("ms", millis(span.totalNanos()));
+        fields.put("executeMs", millis(span.executeNanos));
+        fields.put("fetchMs", millis(span.fetchNanos));
+        if (span.error != null) {
+            fields.put("error", span.error);
+        }
+        return fields;
+    }
+
+    // One EXPLAIN per statement text per cooldown, so a slow endpoint under load does not double its own load.
+    private boolean claimExplain(String sql) {
+        long now = System.currentTimeMillis();
+        Long previous = lastExplained.get(sql);
+        if (previous != null && now - previous < explainCooldownMs) {
+            return false;
+        }
+        lastExplained.put(sql, now);
+        if (lastExplained.size() > 1000) {
+            lastExplained.entrySet().removeIf(e -> now - e.getValue() >= explainCooldownMs);
+        }
+        return true;
+    }
+
+    private static boolean isSelect(String sql) {
+        String head = sql.trim().toUpperCase();
+        return head.startsWith("SELECT") || head.startsWith("WITH");
+    }
+
+    private void explain(String requestId, Span span) {
+        StringBuilder plan = new StringBuilder();
+        try (Connection conn = poolDataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            try (PreparedStatement ps = conn.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + span.sql)) {
+                if (span.bindCalls != null) {
+                    for (Span.BindCall call : span.bindCalls.values()) {
+                        call.method.invoke(ps, call.args);
+                    }
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setReadOnly(false);
+                conn.setAutoCommit(true);
+            }
+        } catch (Exception ex) {
+            log.warn("slow statement could not be explained: {}", ex.getMessage());
+            return;
+        }
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("type", "explain");
+        line.put("requestId", requestId);
+        line.put("sql", truncate(span.sql));
+        line.put("plan", plan.toString());
+        write(line);
+    }
+
+    private void write(Map<String, Object> line) {
+        try {
+            slowLog.warn(objectMapper.writeValueAsString(line));
+        } catch (IOException ex) {
+            log.warn("slow log entry could not be encoded: {}", ex.getMessage());
+        }
+    }
+
+    private static String truncate(String sql) {
+        return sql == null || sql.length() <= MAX_SQL_CHARS ? sql : sql.substring(0, MAX_SQL_CHARS) + "...";
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+}
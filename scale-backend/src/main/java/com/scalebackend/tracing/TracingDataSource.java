@@ -0,0 +1,195 @@
+package com.scalebackend.tracing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+
+// The DataSource behind jdbcTemplate and the transaction manager. Times connection acquisition and wraps
+// connections so that every statement, however JdbcTemplate's callers create it, becomes a Span with its
+// SQL, bind count, execute time, fetch time (ResultSet.next) and row count. unwrap() still reaches the driver
+// connection, so COPY and array creation work as before.
+public class TracingDataSource extends DelegatingDataSource {
+
+    private final Tracer tracer;
+
+    public TracingDataSource(DataSource target, Tracer tracer) {
+        super(target);
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!tracer.isEnabled()) {
+            return obtainTargetDataSource().getConnection();
+        }
+        long start = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection();
+        Span span = new Span(Span.CONNECTION, start);
+        span.executeNanos = System.nanoTime() - start;
+        tracer.finished(span);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            Object result = TracingDataSource.invoke(target, method, args);
+            if (result instanceof Statement && ("prepareStatement".equals(name) || "prepareCall".equals(name) || "createStatement".equals(name))) {
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                Span span = new Span(Span.STATEMENT, System.nanoTime());
+                if (args != null && args.length > 0 && args[0] instanceof String) {
+                    span.sql = (String) args[0];
+                }
+                return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new StatementHandler((Statement) result, span));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final Span span;
+        private boolean closed;
+
+        StatementHandler(Statement target, Span span) {
+            this.target = target;
+            this.span = span;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                int index = (Integer) args[0];
+                span.binds = Math.max(span.binds, index);
+                if (tracer.isExplainEnabled()) {
+                    if (span.bindCalls == null) {
+                        span.bindCalls = new HashMap<>();
+                    }
+                    span.bindCalls.put(index, new Span.BindCall(method, args.clone()));
+                }
+                return TracingDataSource.invoke(target, method, args);
+            }
+            if (name.startsWith("execute")) {
+                return execute(method, args, name);
+            }
+            if ("addBatch".equals(name)) {
+                span.batches++;
+            } else if ("getResultSet".equals(name)) {
+                return wrap((ResultSet) TracingDataSource.invoke(target, method, args));
+            } else if ("close".equals(name)) {
+                close();
+            } else if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            return TracingDataSource.invoke(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args, String name) throws Throwable {
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                span.sql = (String) args[0];
+            }
+            span.executions++;
+            long start = System.nanoTime();
+            try {
+                Object result = TracingDataSource.invoke(target, method, args);
+                if (result instanceof ResultSet) {
+                    return wrap((ResultSet) result);
+                }
+                if (result instanceof Integer || result instanceof Long) {
+                    span.rows += Math.max(0, ((Number) result).longValue());
+                } else if (result instanceof int[]) {
+                    for (int count : (int[]) result) {
+                        span.rows += Math.max(0, count);
+                    }
+                }
+                return result;
+            } catch (Throwable ex) {
+                span.error = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+                throw ex;
+            } finally {
+                span.executeNanos += System.nanoTime() - start;
+            }
+        }
+
+        private ResultSet wrap(ResultSet resultSet) {
+            if (resultSet == null) {
+                return null;
+            }
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    new ResultSetHandler(resultSet, span));
+        }
+
+        private void close() {
+            if (!closed) {
+                closed = true;
+                if (span.executions > 0) {
+                    tracer.finished(span);
+                }
+            }
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final Span span;
+
+        ResultSetHandler(ResultSet target, Span span) {
+            this.target = target;
+            this.span = span;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("next".equals(method.getName())) {
+                long start = System.nanoTime();
+                try {
+                    boolean more = target.next();
+                    if (more) {
+                        span.rows++;
+                    }
+                    return more;
+                } finally {
+                    span.fetchNanos += System.nanoTime() - start;
+                }
+            }
+            return TracingDataSource.invoke(target, method, args);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.scalebackend.tracing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+// Opens a Trace per request and binds it to the serving thread. The id comes from X-Request-Id when the
+// caller sends a sane one and is echoed back, so a slow-log line can be matched to the client's own logs.
+@Component
+public class TracingInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private static final String TRACE_ATTRIBUTE = TracingInterceptor.class.getName() + ".trace";
+    private static final Pattern REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Autowired
+    private Tracer tracer;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!tracer.isEnabled()) {
+            return true;
+        }
+        // an async request is dispatched twice; the second dispatch continues the trace of the first
+        Object existing = request.getAttribute(TRACE_ATTRIBUTE);
+        if (existing instanceof Trace) {
+            tracer.attach((Trace) existing);
+            return true;
+        }
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !REQUEST_ID.matcher(requestId).matches()) {
+            requestId = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        Trace trace = tracer.begin(requestId, handlerName(handler), request.getMethod() + " " + request.getRequestURI());
+        request.setAttribute(TRACE_ATTRIBUTE, trace);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        tracer.detach();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object trace = request.getAttribute(TRACE_ATTRIBUTE);
+        if (!(trace instanceof Trace)) {
+            return;
+        }
+        tracer.detach();
+        tracer.end((Trace) trace, ex != null && response.getStatus() < 400 ? 500 : response.getStatus());
+    }
+
+    private static String handlerName(Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod method = (HandlerMethod) handler;
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return handler.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,15 @@
+package com.scalebackend.validation;
+
+import java.util.List;
+
+public class SheetValidationException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public final List<String> errors;
+
+    public SheetValidationException(List<String> errors) {
+        super("Invalid values: " + String.join("; ", errors));
+        this.errors = errors;
+    }
+}
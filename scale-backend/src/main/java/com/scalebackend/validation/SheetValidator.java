@@ -0,0 +1,306 @@
+package com.scalebackend.validation;
+
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.TableColumnDTO;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Rules of one template version, compiled once from its field definitions. validate() makes a single pass
+// over the submitted values (keyed by field id, each {type, value, unit}) using hash lookups only.
+public final class SheetValidator {
+
+    private static final int MAX_ERRORS = 20;
+
+    private enum Kind { TEXT, NUMBER, DATE, BOOLEAN, DROPDOWN, TABLE, MULTI }
+
+    private final Map<String, FieldRule> rules;
+    private final List<FieldRule> required;
+
+    private SheetValidator(Map<String, FieldRule> rules, List<FieldRule> required) {
+        this.rules = rules;
+        this.required = required;
+    }
+
+    public static SheetValidator compile(List<FieldDefinitionDTO> fields) {
+        Map<String, FieldRule> rules = new HashMap<>();
+        List<FieldRule> required = new ArrayList<>();
+        for (FieldDefinitionDTO f : fields) {
+            FieldRule rule = new FieldRule(f);
+            rules.put(String.valueOf(f.id), rule);
+            if (rule.required) {
+                required.add(rule);
+            }
+        }
+        return new SheetValidator(rules, required);
+    }
+
+    public List<String> validate(Map<String, Object> values) {
+        List<String> errors = new ArrayList<>();
+        int requiredPresent = 0;
+        if (values != null) {
+            for (Map.Entry<String, Object> e : values.entrySet()) {
+                FieldRule rule = rules.get(e.getKey());
+                if (rule == null) {
+                    add(errors, "unknown field id " + e.getKey());
+                } else if (rule.check(e.getValue(), errors) && rule.required) {
+                    requiredPresent++;
+                }
+                if (errors.size() >= MAX_ERRORS) {
+                    return errors;
+                }
+            }
+        }
+        if (requiredPresent < required.size()) {
+            // Only on failure: find out which required fields were missing.
+            for (FieldRule rule : required) {
+                Object entry = values == null ? null : values.get(rule.id);
+                if (!rule.isPresent(entry)) {
+                    add(errors, rule.key + ": required");
+                }
+            }
+        }
+        return errors;
+    }
+
+    private static void add(List<String> errors, String error) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(error);
+        }
+    }
+
+    private static Set<String> hashed(Collection<String> values) {
+        return values == null || values.isEmpty() ? null : new HashSet<>(values);
+    }
+
+    private static Kind kindOf(String type) {
+        try {
+            return Kind.valueOf(type);
+        } catch (RuntimeException ex) {
+            return Kind.TEXT;
+        }
+    }
+
+    private static boolean isDate(Object value) {
+        if (!(value instanceof String) || ((String) value).length() != 10) {
+            return false;
+        }
+        try {
+            LocalDate.parse((String) value);
+            return true;
+        } catch (DateTimeParseException ex) {
+            return false;
+        }
+    }
+
+    private static final class FieldRule {
+        final String id;
+        final String key;
+        final Kind kind;
+        final String expectedType;
+        final boolean multi;
+        final boolean required;
+        final boolean unitRequired;
+        final Set<String> units;
+        final Set<String> options;
+        final Set<String> multiKeys;
+        final Map<String, ColumnRule> columns;
+
+        FieldRule(FieldDefinitionDTO f) {
+            id = String.valueOf(f.id);
+            key = f.key;
+            // The form only switches a field to MULTI once it has parts; until then its values keep the
+            // base type, except that picking a unit already sends {type: MULTI, value: {}}.
+            multi = Boolean.TRUE.equals(f.isMulti);
+            kind = multi && f.multiKeys != null && !f.multiKeys.isEmpty() ? Kind.MULTI : kindOf(f.type);
+            expectedType = kind == Kind.MULTI ? "MULTI" : f.type;
+            required = Boolean.TRUE.equals(f.required);
+            unitRequired = "REQUIRED".equals(f.unitMode);
+            units = hashed(f.unitOptions);
+            options = hashed(f.dropdownOptions);
+            multiKeys = hashed(f.multiKeys);
+            columns = new HashMap<>();
+            if (f.tableSchema != null) {
+                for (TableColumnDTO c : f.tableSchema.columns) {
+                    columns.put(c.key, new ColumnRule(c, columns.isEmpty()));
+                }
+            }
+        }
+
+        // Returns whether the entry holds a value that satisfies "required".
+        boolean check(Object entry, List<String> errors) {
+            if (entry == null) {
+                return false;
+            }
+            if (!(entry instanceof Map)) {
+                add(errors, key + ": expected an object");
+                return false;
+            }
+            Map<?, ?> map = (Map<?, ?>) entry;
+            Object type = map.get("type");
+            if (type != null && !type.equals(expectedType) && !(multi && "MULTI".equals(type))) {
+                add(errors, key + ": expected type " + expectedType);
+                return false;
+            }
+            Object value = map.get("value");
+            if (value == null) {
+                return false;
+            }
+
+            Kind kind = kindIn(map);
+            int before = errors.size();
+            switch (kind) {
+                case TEXT:
+                    if (!(value instanceof String)) {
+                        add(errors, key + ": expected text");
+                    }
+                    break;
+                case NUMBER:
+                    if (!(value instanceof Number)) {
+                        add(errors, key + ": expected a number");
+                    }
+                    break;
+                case DATE:
+                    if (!isDate(value)) {
+                        add(errors, key + ": expected a yyyy-MM-dd date");
+                    }
+                    break;
+                case BOOLEAN:
+                    if (!(value instanceof Boolean)) {
+                        add(errors, key + ": expected true or false");
+                    }
+                    break;
+                case DROPDOWN:
+                    if (!(value instanceof String) || (options != null && !options.contains(value))) {
+                        add(errors, key + ": not one of the dropdown options");
+                    }
+                    break;
+                case MULTI:
+                    checkMulti(value, errors);
+                    break;
+                case TABLE:
+                    checkTable(value, errors);
+                    break;
+                default:
+                    break;
+            }
+            if (kind == Kind.NUMBER || kind == Kind.MULTI) {
+                checkUnit(map.get("unit"), errors);
+            }
+            return errors.size() == before && isPresent(entry);
+        }
+
+        boolean isPresent(Object entry) {
+            Object value = entry instanceof Map ? ((Map<?, ?>) entry).get("value") : null;
+            if (value == null) {
+                return false;
+            }
+            Kind kind = kindIn((Map<?, ?>) entry);
+            if (value instanceof String) {
+                return !((String) value).trim().isEmpty();
+            }
+            if (kind == Kind.TABLE) {
+                Object rows = value instanceof Map ? ((Map<?, ?>) value).get("rows") : null;
+                return rows instanceof List && !((List<?>) rows).isEmpty();
+            }
+            if (kind == Kind.MULTI) {
+                return value instanceof Map && ((Map<?, ?>) value).values().stream().anyMatch(v -> v != null);
+            }
+            return true;
+        }
+
+        private Kind kindIn(Map<?, ?> entry) {
+            return multi && "MULTI".equals(entry.get("type")) ? Kind.MULTI : kind;
+        }
+
+        private void checkUnit(Object unit, List<String> errors) {
+            if (unit == null) {
+                if (unitRequired) {
+                    add(errors, key + ": unit is required");
+                }
+            } else if (units != null && !units.contains(unit)) {
+                add(errors, key + ": unknown unit " + unit);
+            }
+        }
+
+        private void checkMulti(Object value, List<String> errors) {
+            if (!(value instanceof Map)) {
+                add(errors, key + ": expected an object of parts");
+                return;
+            }
+            for (Map.Entry<?, ?> part : ((Map<?, ?>) value).entrySet()) {
+                if (multiKeys != null && !multiKeys.contains(part.getKey())) {
+                    add(errors, key + ": unknown part " + part.getKey());
+                } else if (part.getValue() != null && !(part.getValue() instanceof Number)) {
+                    add(errors, key + "." + part.getKey() + ": expected a number");
+                }
+            }
+        }
+
+        private void checkTable(Object value, List<String> errors) {
+            Object rows = value instanceof Map ? ((Map<?, ?>) value).get("rows") : null;
+            if (!(rows instanceof List)) {
+                add(errors, key + ": expected {rows: [...]}");
+                return;
+            }
+            int rowNo = 0;
+            for (Object row : (List<?>) rows) {
+                rowNo++;
+                if (!(row instanceof Map)) {
+                    add(errors, key + " row " + rowNo + ": expected an object");
+                    continue;
+                }
+                for (Map.Entry<?, ?> cell : ((Map<?, ?>) row).entrySet()) {
+                    ColumnRule column = columns.get(cell.getKey());
+                    if (column == null) {
+                        add(errors, key + " row " + rowNo + ": unknown column " + cell.getKey());
+                    } else if (cell.getValue() != null && !"".equals(cell.getValue()) && !column.accepts(cell.getValue())) {
+                        add(errors, key + " row " + rowNo + "." + column.key + ": expected " + column.kind);
+                    }
+                }
+            }
+        }
+    }
+
+    // Cells as the table editor sends them: columns other than NUMBER and DROPDOWN are text inputs (so
+    // BOOLEAN cells come as "true"/"false"), an empty input is "", and default rows seed the first column
+    // with numbers whatever its type.
+    private static final class ColumnRule {
+        final String key;
+        final Kind kind;
+        final boolean first;
+        final Set<String> options;
+
+        ColumnRule(TableColumnDTO c, boolean first) {
+            key = c.key;
+            kind = kindOf(c.type);
+            this.first = first;
+            options = hashed(c.dropdownOptions);
+        }
+
+        boolean accepts(Object value) {
+            if (first && value instanceof Number) {
+                return true;
+            }
+            switch (kind) {
+                case NUMBER:
+                    return value instanceof Number;
+                case BOOLEAN:
+                    return value instanceof Boolean || "true".equals(value) || "false".equals(value);
+                case DATE:
+                    return isDate(value);
+                case DROPDOWN:
+                    return value instanceof String && (options == null || options.contains(value));
+                default:
+                    return value instanceof String;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.scalebackend.ws;
+
+import com.scalebackend.dto.AsyncPoolStatsDTO;
+import com.scalebackend.dto.response.ServiceMessageResponse;
+import com.scalebackend.tracing.Trace;
+import com.scalebackend.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs slow ScaleWS handlers off the servlet container threads, on one bounded pool per workload class,
+// so that exports and history scans can only exhaust their own pool and not the threads serving cheap
+// reads. A full queue is answered at once with 503 and Retry-After; a handler that does not finish within
+// its pool's timeout gets 503 and is interrupted. The request's Trace follows the handler onto the pool thread.
+@Component
+public class AsyncHandlers {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncHandlers.class);
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    public enum Workload {
+        // pages and lookups a user is waiting on
+        INTERACTIVE,
+        // exports, searches, history scans and rebuilds
+        BULK
+    }
+
+    @Autowired
+    @Qualifier("interactiveExecutor")
+    private ThreadPoolTaskExecutor interactiveExecutor;
+
+    @Autowired
+    @Qualifier("bulkExecutor")
+    private ThreadPoolTaskExecutor bulkExecutor;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Value("${async.interactive.timeoutMs}")
+    private long interactiveTimeoutMs;
+
+    @Value("${async.bulk.timeoutMs}")
+    private long bulkTimeoutMs;
+
+    private final Counters[] counters = {new Counters(), new Counters()};
+
+    public <T> DeferredResult<ResponseEntity<ServiceMessageResponse<T>>> submit(Workload workload, String errorDetail,
+                                                                               Callable<ResponseEntity<ServiceMessageResponse<T>>> handler) {
+        return submit(workload, timeoutOf(workload), errorDetail, handler);
+    }
+
+    // For handlers that write the body themselves: once bytes are on the wire a timeout response can no longer
+    // be sent, so these run until they finish or the client goes away.
+    public <T> DeferredResult<ResponseEntity<ServiceMessageResponse<T>>> submitStreaming(Workload workload, String errorDetail,
+                                                                                        Callable<ResponseEntity<ServiceMessageResponse<T>>> handler) {
+        return submit(workload, 0L, errorDetail, handler);
+    }
+
+    private <T> DeferredResult<ResponseEntity<ServiceMessageResponse<T>>> submit(Workload workload, long timeoutMs, String errorDetail,
+                                                                                Callable<ResponseEntity<ServiceMessageResponse<T>>> handler) {
+        Counters counter = counters[workload.ordinal()];
+        DeferredResult<ResponseEntity<ServiceMessageResponse<T>>> result = new DeferredResult<>(timeoutMs,
+                () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(ServiceMessageResponse.error(errorDetail + "request timed out after " + timeoutMs + " ms.")));
+        AtomicReference<Future<?>> task = new AtomicReference<>();
+        result.onTimeout(() -> {
+            counter.timedOut.increment();
+            Future<?> future = task.get();
+            if (future != null) {
+                future.cancel(true);
+            }
+        });
+
+        Trace trace = tracer.current();
+        try {
+            task.set(executorOf(workload).submit(() -> {
+                // skip work whose caller has already been answered with a timeout while it was queued
+                if (result.isSetOrExpired()) {
+                    return;
+                }
+                if (trace != null) {
+                    tracer.attach(trace);
+                }
+                try {
+                    result.setResult(handler.call());
+                } catch (Exception ex) {
+                    log.warn("async handler failed: {}", ex.getMessage());
+                    result.setResult(ResponseEntity.internalServerError().body(ServiceMessageResponse.error(errorDetail + ex.getMessage())));
+                } finally {
+                    if (trace != null) {
+                        tracer.detach();
+                    }
+                    counter.completed.increment();
+                }
+            }));
+        } catch (RejectedExecutionException ex) {
+            counter.rejected.increment();
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body(ServiceMessageResponse.error(errorDetail + "server is busy, retry later.")));
+        }
+        return result;
+    }
+
+    public List<AsyncPoolStatsDTO> stats() {
+        List<AsyncPoolStatsDTO> stats = new ArrayList<>();
+        for (Workload workload : Workload.values()) {
+            ThreadPoolTaskExecutor executor = executorOf(workload);
+            Counters counter = counters[workload.ordinal()];
+            AsyncPoolStatsDTO dto = new AsyncPoolStatsDTO();
+            dto.name = workload.name().toLowerCase();
+            dto.activeThreads = executor.getActiveCount();
+            dto.poolSize = executor.getPoolSize();
+            dto.maxPoolSize = executor.getMaxPoolSize();
+            dto.queued = executor.getThreadPoolExecutor().getQueue().size();
+            dto.queueCapacity = dto.queued + executor.getThreadPoolExecutor().getQueue().remainingCapacity();
+            dto.timeoutMs = timeoutOf(workload);
+            dto.completed = counter.completed.sum();
+            dto.rejected = counter.rejected.sum();
+            dto.timedOut = counter.timedOut.sum();
+            stats.add(dto);
+        }
+        return stats;
+    }
+
+    private ThreadPoolTaskExecutor executorOf(Workload workload) {
+        return workload == Workload.BULK ? bulkExecutor : interactiveExecutor;
+    }
+
+    private long timeoutOf(Workload workload) {
+        return workload == Workload.BULK ? bulkTimeoutMs : interactiveTimeoutMs;
+    }
+
+    private static final class Counters {
+        final LongAdder completed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder timedOut = new LongAdder();
+    }
+}
@@ -0,0 +1,78 @@
+package com.scalebackend.ws;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.scalebackend.dto.response.ServiceMessageResponse;
+import com.scalebackend.limit.OverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+@Component
+public class JsonStreamer {
+
+    private static final Logger log = LoggerFactory.getLogger(JsonStreamer.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectWriter itemWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    public interface Source<T> {
+        void writeTo(Consumer<T> sink);
+    }
+
+    // Writes the same envelope as ServiceMessageResponse.success(detail, list), one element at a time.
+    public <T> void stream(HttpServletResponse response, String detail, String errorDetail, Source<T> source) throws IOException {
+        ServiceMessageResponse<Void> head = ServiceMessageResponse.success(detail, null);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        try {
+            gen.writeStartObject();
+            gen.writeStringField("severity", head.severity);
+            gen.writeStringField("summary", head.summary);
+            gen.writeStringField("detail", head.detail);
+            gen.writeBooleanField("status", head.status);
+            gen.writeArrayFieldStart("data");
+            source.writeTo(item -> {
+                try {
+                    itemWriter.writeValue(gen, item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            gen.writeEndArray();
+            gen.writeEndObject();
+        } catch (Exception ex) {
+            if (response.isCommitted()) {
+                // Part of the body is already on the wire; the truncated document is the only signal left.
+                log.warn("streamed response aborted: {}", ex.getMessage());
+                throw ex;
+            }
+            response.reset();
+            if (ex instanceof OverloadedException) {
+                OverloadedException overloaded = (OverloadedException) ex;
+                response.setStatus(overloaded.status.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(overloaded.retryAfterSeconds));
+            } else {
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(), ServiceMessageResponse.error(errorDetail + ex.getMessage()));
+            return;
+        }
+        gen.close();
+    }
+}
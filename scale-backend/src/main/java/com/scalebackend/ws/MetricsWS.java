@@ -0,0 +1,113 @@
+package com.scalebackend.ws;
+
+import com.scalebackend.cache.SheetCache;
+import com.scalebackend.cache.SheetValidatorCache;
+import com.scalebackend.cache.TemplateCache;
+import com.scalebackend.dto.AsyncPoolStatsDTO;
+import com.scalebackend.dto.CacheStatsDTO;
+import com.scalebackend.dto.LimiterStatsDTO;
+import com.scalebackend.dto.OutputQueueStatsDTO;
+import com.scalebackend.dto.PoolStatsDTO;
+import com.scalebackend.dto.response.ServiceMessageResponse;
+import com.scalebackend.formula.FormulaEngine;
+import com.scalebackend.limit.ServiceLimiter;
+import com.scalebackend.metrics.PoolMetrics;
+import com.scalebackend.metrics.PrometheusExporter;
+import com.scalebackend.outputs.OutputWorker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/scale/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsWS {
+
+    @Autowired
+    private PoolMetrics poolMetrics;
+
+    @Autowired
+    private PrometheusExporter prometheusExporter;
+
+    @Autowired
+    private TemplateCache templateCache;
+
+    @Autowired
+    private SheetCache sheetCache;
+
+    @Autowired
+    private SheetValidatorCache sheetValidatorCache;
+
+    @Autowired
+    private FormulaEngine formulaEngine;
+
+    @Autowired
+    private OutputWorker outputWorker;
+
+    @Autowired
+    private AsyncHandlers asyncHandlers;
+
+    @Autowired
+    private ServiceLimiter serviceLimiter;
+
+    @GetMapping(value = "", produces = PrometheusExporter.CONTENT_TYPE)
+    public ResponseEntity<String> scrape() {
+        return ResponseEntity.ok(prometheusExporter.scrape(poolMetrics.snapshot(), cacheStats(), asyncHandlers.stats(), serviceLimiter.stats()));
+    }
+
+    @GetMapping("/pool")
+    public ResponseEntity<ServiceMessageResponse<PoolStatsDTO>> getPoolStats() {
+        try {
+            return ResponseEntity.ok(ServiceMessageResponse.success("pool stats fetched successfully.", poolMetrics.snapshot()));
+        } catch (Exception ex) {
+            return ResponseEntity.internalServerError().body(ServiceMessageResponse.error("pool stats can not be fetched. " + ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/caches")
+    public ResponseEntity<ServiceMessageResponse<List<CacheStatsDTO>>> getCacheStats() {
+        try {
+            return ResponseEntity.ok(ServiceMessageResponse.success("cache stats fetched successfully.", cacheStats()));
+        } catch (Exception ex) {
+            return ResponseEntity.internalServerError().body(ServiceMessageResponse.error("cache stats can not be fetched. " + ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/outputs")
+    public ResponseEntity<ServiceMessageResponse<OutputQueueStatsDTO>> getOutputQueueStats() {
+        try {
+            return ResponseEntity.ok(ServiceMessageResponse.success("output queue stats fetched successfully.", outputWorker.stats()));
+        } catch (Exception ex) {
+            return ResponseEntity.internalServerError().body(ServiceMessageResponse.error("output queue stats can not be fetched. " + ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/async")
+    public ResponseEntity<ServiceMessageResponse<List<AsyncPoolStatsDTO>>> getAsyncPoolStats() {
+        try {
+            return ResponseEntity.ok(ServiceMessageResponse.success("async pool stats fetched successfully.", asyncHandlers.stats()));
+        } catch (Exception ex) {
+            return ResponseEntity.internalServerError().body(ServiceMessageResponse.error("async pool stats can not be fetched. " + ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/limiter")
+    public ResponseEntity<ServiceMessageResponse<LimiterStatsDTO>> getLimiterStats() {
+        try {
+            return ResponseEntity.ok(ServiceMessageResponse.success("limiter stats fetched successfully.", serviceLimiter.stats()));
+        } catch (Exception ex) {
+            return ResponseEntity.internalServerError().body(ServiceMessageResponse.error("limiter stats can not be fetched. " + ex.getMessage()));
+        }
+    }
+
+    private List<CacheStatsDTO> cacheStats() {
+        List<CacheStatsDTO> stats = new ArrayList<>(templateCache.stats());
+        stats.add(sheetCache.stats());
+        stats.add(sheetValidatorCache.stats());
+        stats.add(formulaEngine.stats());
+        return stats;
+    }
+}
@@ -1,43 +1,121 @@
 package com.scalebackend.ws;
 
+import com.scalebackend.cache.JsonPayload;
 import com.scalebackend.dto.*;
 import com.scalebackend.dto.request.CreateSheetRequestDTO;
 import com.scalebackend.dto.request.CreateTemplateVersionRequestDTO;
 import com.scalebackend.dto.request.SaveFieldsVersionRequestDTO;
+import com.scalebackend.dto.request.SheetExportRequestDTO;
+import com.scalebackend.dto.request.SheetPageRequestDTO;
+import com.scalebackend.dto.request.SheetSearchRequestDTO;
 import com.scalebackend.dto.response.ServiceMessageResponse;
+import com.scalebackend.limit.OverloadedException;
 import com.scalebackend.service.ScaleService;
+import com.scalebackend.ws.AsyncHandlers.Workload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/scale")
 @CrossOrigin(origins = "*")
 public class ScaleWS {
 
+    // the ServiceLimiter-guarded proxy; background workers use the plain service
     @Autowired
+    @Qualifier("limitedScaleService")
     private ScaleService scaleService;
 
+    @Autowired
+    private JsonStreamer jsonStreamer;
+
+    @Autowired
+    private AsyncHandlers asyncHandlers;
+
+    private static final Logger log = LoggerFactory.getLogger(ScaleWS.class);
+
+    private static final int EXPORT_BUFFER_BYTES = 64 * 1024;
+
     @PostMapping("/createType")
     public ResponseEntity<ServiceMessageResponse<TypeDTO>> createType(@RequestBody TypeDTO dto) {
         try {
             TypeDTO created = scaleService.createType(dto);
             return ok("type is created successfully.", created);
         } catch (Exception ex) {
-            return error("type can not be created. " + ex.getMessage());
+            return error("type can not be created. ", ex);
         }
     }
 
     @GetMapping("/items/tree")
-    public ResponseEntity<ServiceMessageResponse<List<ItemTreeNodeDTO>>> getItemsTree() {
+    public ResponseEntity<?> getItemsTree(WebRequest webRequest) {
         try {
-            return ok("item tree fetched successfully.", scaleService.getItemsTree());
+            JsonPayload payload = scaleService.getItemsTreePayload();
+            if (webRequest.checkNotModified(payload.etag)) {
+                return null;
+            }
+            return raw(payload);
         } catch (Exception ex) {
-            return error("item tree can not be fetched. " + ex.getMessage());
+            return error("item tree can not be fetched. ", ex);
+        }
+    }
+
+    @GetMapping("/items/tree/parts")
+    public ResponseEntity<ServiceMessageResponse<ItemTreePageDTO>> getPartNodes(@RequestParam(required = false) String prefix,
+                                                                               @RequestParam(required = false) String cursor,
+                                                                               @RequestParam(required = false) Integer limit) {
+        try {
+            return ok("part nodes fetched successfully.", scaleService.getPartNodes(prefix, cursor, limit));
+        } catch (IllegalArgumentException ex) {
+            return error(HttpStatus.BAD_REQUEST, "part nodes can not be fetched. " + ex.getMessage());
+        } catch (Exception ex) {
+            return error("part nodes can not be fetched. ", ex);
+        }
+    }
+
+    @GetMapping("/items/tree/serials")
+    public ResponseEntity<ServiceMessageResponse<ItemTreePageDTO>> getSerialNodes(@RequestParam String partId,
+                                                                                 @RequestParam(required = false) String prefix,
+                                                                                 @RequestParam(required = false) String cursor,
+                                                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            return ok("serial nodes fetched successfully.", scaleService.getSerialNodes(partId, prefix, cursor, limit));
+        } catch (IllegalArgumentException ex) {
+            return error(HttpStatus.BAD_REQUEST, "serial nodes can not be fetched. " + ex.getMessage());
+        } catch (Exception ex) {
+            return error("serial nodes can not be fetched. ", ex);
+        }
+    }
+
+    @GetMapping("/items/tree/bridges")
+    public ResponseEntity<ServiceMessageResponse<ItemTreePageDTO>> getBridgeNodes(@RequestParam String partId,
+                                                                                 @RequestParam String partSn,
+                                                                                 @RequestParam(required = false) String cursor,
+                                                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            return ok("bridge nodes fetched successfully.", scaleService.getBridgeNodes(partId, partSn, cursor, limit));
+        } catch (IllegalArgumentException ex) {
+            return error(HttpStatus.BAD_REQUEST, "bridge nodes can not be fetched. " + ex.getMessage());
+        } catch (Exception ex) {
+            return error("bridge nodes can not be fetched. ", ex);
         }
     }
 
@@ -46,16 +124,28 @@ public class ScaleWS {
         try {
             return ok("item fetched successfully.", scaleService.getItemById(itemId));
         } catch (Exception ex) {
-            return error("item can not be fetched. " + ex.getMessage());
+            return error("item can not be fetched. ", ex);
         }
     }
 
+    @GetMapping("/items/{itemId}/workspace")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<ItemWorkspaceDTO>>> getItemWorkspace(@PathVariable Integer itemId,
+                                                                                                    @RequestParam(required = false) Integer historyLimit) {
+        return asyncHandlers.submit(Workload.INTERACTIVE, "item workspace can not be fetched. ", () -> {
+            try {
+                return ok("item workspace fetched successfully.", scaleService.getItemWorkspace(itemId, historyLimit));
+            } catch (Exception ex) {
+                return error("item workspace can not be fetched. ", ex);
+            }
+        });
+    }
+
     @GetMapping("/items/partIds")
     public ResponseEntity<ServiceMessageResponse<List<String>>> listPartIds() {
         try {
             return ok("part ids fetched successfully.", scaleService.listPartIds());
         } catch (Exception ex) {
-            return error("part ids can not be fetched. " + ex.getMessage());
+            return error("part ids can not be fetched. ", ex);
         }
     }
 
@@ -63,55 +153,293 @@ public class ScaleWS {
     public ResponseEntity<ServiceMessageResponse<SheetDTO>> createSheet(@RequestBody CreateSheetRequestDTO request) {
         try {
             return ok("sheet is created successfully.", scaleService.createSheet(request));
+        } catch (IllegalArgumentException ex) {
+            return error(HttpStatus.BAD_REQUEST, "sheet can not be created. " + ex.getMessage());
         } catch (DataIntegrityViolationException ex) {
             return error(HttpStatus.CONFLICT, "sheet can not be created due to duplicate or invalid relation.");
         } catch (Exception ex) {
-            return error("sheet can not be created. " + ex.getMessage());
+            return error("sheet can not be created. ", ex);
         }
     }
 
+    @PostMapping("/sheets/batch")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<SheetBatchResultDTO>>> createSheets(@RequestBody List<CreateSheetRequestDTO> requests) {
+        return asyncHandlers.submit(Workload.BULK, "sheets can not be created. ", () -> {
+            try {
+                SheetBatchResultDTO result = scaleService.createSheets(requests);
+                return ok(result.created + " sheets are created, " + result.conflicts + " already exist.", result);
+            } catch (IllegalArgumentException ex) {
+                return error(HttpStatus.BAD_REQUEST, "sheets can not be created. " + ex.getMessage());
+            } catch (DataIntegrityViolationException ex) {
+                return error(HttpStatus.CONFLICT, "sheets can not be created due to invalid relation.");
+            } catch (Exception ex) {
+                return error("sheets can not be created. ", ex);
+            }
+        });
+    }
+
     @GetMapping("/sheets/{sheetId}")
-    public ResponseEntity<ServiceMessageResponse<SheetDetailDTO>> getSheet(@PathVariable Integer sheetId) {
+    public ResponseEntity<?> getSheet(@PathVariable Integer sheetId, WebRequest webRequest) {
         try {
-            return ok("sheet fetched successfully.", scaleService.getSheet(sheetId));
+            JsonPayload payload = scaleService.getSheetPayload(sheetId);
+            if (webRequest.checkNotModified(payload.etag)) {
+                return null;
+            }
+            return raw(payload);
         } catch (Exception ex) {
-            return error("sheet can not be fetched. " + ex.getMessage());
+            return error("sheet can not be fetched. ", ex);
         }
     }
 
     @GetMapping("/sheets")
-    public ResponseEntity<ServiceMessageResponse<List<SheetDTO>>> listItemSheets(@RequestParam Integer itemId, @RequestParam String kind) {
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<Void>>> listItemSheets(@RequestParam Integer itemId, @RequestParam String kind,
+                                                                                     HttpServletResponse response) {
+        return asyncHandlers.submitStreaming(Workload.BULK, "item sheets can not be fetched. ", () -> {
+            try {
+                jsonStreamer.<SheetDTO>stream(response, "item sheets fetched successfully.", "item sheets can not be fetched. ",
+                        sink -> scaleService.streamItemSheets(itemId, kind, sink));
+            } catch (IOException ex) {
+                // already logged by JsonStreamer; the truncated body is all the client gets
+            }
+            return null;
+        });
+    }
+
+    @GetMapping("/sheets/export")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<Void>>> exportSheets(@RequestParam(required = false) String format,
+                                                                                     @RequestParam(required = false) Integer itemId,
+                                                                                     @RequestParam(required = false) String partId,
+                                                                                     @RequestParam(required = false) Integer templateId,
+                                                                                     @RequestParam(required = false) String templateCode,
+                                                                                     @RequestParam(required = false) String kind,
+                                                                                     @RequestParam(required = false) String from,
+                                                                                     @RequestParam(required = false) String to,
+                                                                                     @RequestParam(defaultValue = "false") boolean gzip,
+                                                                                     HttpServletResponse response) {
+        SheetExportRequestDTO request = new SheetExportRequestDTO();
+        request.format = format;
+        request.itemId = itemId;
+        request.partId = partId;
+        request.templateId = templateId;
+        request.templateCode = templateCode;
+        request.kind = kind;
+        request.from = from;
+        request.to = to;
+
+        String extension = format != null && "ndjson".equalsIgnoreCase(format.trim()) ? "ndjson" : "csv";
+        response.setContentType(gzip ? "application/gzip" : "ndjson".equals(extension) ? "application/x-ndjson" : "text/csv");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sheets." + extension + (gzip ? ".gz" : "") + "\"");
+        response.setBufferSize(EXPORT_BUFFER_BYTES);
+        return asyncHandlers.submitStreaming(Workload.BULK, "sheets can not be exported. ", () -> {
+            try {
+                OutputStream out = gzip ? new BufferedOutputStream(new FastGzipOutputStream(response.getOutputStream()), EXPORT_BUFFER_BYTES)
+                        : response.getOutputStream();
+                scaleService.exportSheets(request, out);
+                out.close();
+                return null;
+            } catch (Exception ex) {
+                if (response.isCommitted()) {
+                    // Part of the file is already on the wire (or the client went away); the COPY has been cancelled.
+                    log.warn("sheet export aborted: {}", ex.getMessage());
+                    return null;
+                }
+                response.reset();
+                if (ex instanceof IllegalArgumentException) {
+                    return error(HttpStatus.BAD_REQUEST, "sheets can not be exported. " + ex.getMessage());
+                }
+                return error("sheets can not be exported. ", ex);
+            }
+        });
+    }
+
+    @GetMapping("/sheets/page")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<SheetPageDTO>>> getItemSheetPage(@RequestParam Integer itemId,
+                                                                                                @RequestParam String kind,
+                                                                                                @RequestParam(required = false) Integer templateId,
+                                                                                                @RequestParam(required = false) String from,
+                                                                                                @RequestParam(required = false) String to,
+                                                                                                @RequestParam(required = false) String cursor,
+                                                                                                @RequestParam(required = false) Integer limit) {
+        SheetPageRequestDTO request = new SheetPageRequestDTO();
+        request.itemId = itemId;
+        request.kind = kind;
+        request.templateId = templateId;
+        request.from = from;
+        request.to = to;
+        request.cursor = cursor;
+        request.limit = limit;
+        return asyncHandlers.submit(Workload.INTERACTIVE, "item sheets can not be fetched. ", () -> {
+            try {
+                return ok("item sheets fetched successfully.", scaleService.getSheetPage(request));
+            } catch (IllegalArgumentException ex) {
+                return error(HttpStatus.BAD_REQUEST, "item sheets can not be fetched. " + ex.getMessage());
+            } catch (Exception ex) {
+                return error("item sheets can not be fetched. ", ex);
+            }
+        });
+    }
+
+    @PostMapping("/sheets/search")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<SheetPageDTO>>> searchSheets(@RequestBody SheetSearchRequestDTO request) {
+        return asyncHandlers.submit(Workload.BULK, "sheets can not be searched. ", () -> {
+            try {
+                return ok("sheets fetched successfully.", scaleService.searchSheets(request));
+            } catch (IllegalArgumentException ex) {
+                return error(HttpStatus.BAD_REQUEST, "sheets can not be searched. " + ex.getMessage());
+            } catch (Exception ex) {
+                return error("sheets can not be searched. ", ex);
+            }
+        });
+    }
+
+    @GetMapping("/stats/fields")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<FieldStatsDTO>>> getFieldStats(@RequestParam String templateCode,
+                                                                                             @RequestParam String fieldKey,
+                                                                                             @RequestParam(required = false) String from,
+                                                                                             @RequestParam(required = false) String to) {
+        return asyncHandlers.submit(Workload.INTERACTIVE, "field stats can not be fetched. ", () -> {
+            try {
+                return ok("field stats fetched successfully.", scaleService.getFieldStats(templateCode, fieldKey, from, to));
+            } catch (IllegalArgumentException ex) {
+                return error(HttpStatus.BAD_REQUEST, "field stats can not be fetched. " + ex.getMessage());
+            } catch (Exception ex) {
+                return error("field stats can not be fetched. ", ex);
+            }
+        });
+    }
+
+    @PostMapping("/stats/fields/rebuild")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<Void>>> rebuildFieldStats() {
+        return asyncHandlers.submit(Workload.BULK, "field stats can not be rebuilt. ", () -> {
+            try {
+                scaleService.rebuildFieldStats();
+                return ok("field stats are rebuilt successfully.", null);
+            } catch (Exception ex) {
+                return error("field stats can not be rebuilt. ", ex);
+            }
+        });
+    }
+
+    @GetMapping("/projections")
+    public ResponseEntity<ServiceMessageResponse<List<ProjectionDTO>>> listProjections() {
         try {
-            return ok("item sheets fetched successfully.", scaleService.listItemSheets(itemId, kind));
+            return ok("projections fetched successfully.", scaleService.listProjections());
+        } catch (IllegalArgumentException ex) {
+            return error(HttpStatus.BAD_REQUEST, "projections can not be fetched. " + ex.getMessage());
         } catch (Exception ex) {
-            return error("item sheets can not be fetched. " + ex.getMessage());
+            return error("projections can not be fetched. ", ex);
         }
     }
 
-    @GetMapping("/sheets/{inputSheetId}/outputs")
-    public ResponseEntity<ServiceMessageResponse<List<SheetDTO>>> listInputOutputs(@PathVariable Integer inputSheetId) {
+    @PostMapping("/projections")
+    public ResponseEntity<ServiceMessageResponse<ProjectionDTO>> enableProjection(@RequestParam String templateCode) {
         try {
-            return ok("output sheets fetched successfully.", scaleService.listInputOutputs(inputSheetId));
+            return ok("projection is enabled successfully.", scaleService.enableProjection(templateCode));
+        } catch (IllegalArgumentException ex) {
+            return error(HttpStatus.BAD_REQUEST, "projection can not be enabled. " + ex.getMessage());
         } catch (Exception ex) {
-            return error("output sheets can not be fetched. " + ex.getMessage());
+            return error("projection can not be enabled. ", ex);
         }
     }
 
+    @PostMapping("/formulas/recompute")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<FormulaRecomputeDTO>>> recomputeFormulas(@RequestParam Integer templateId) {
+        return asyncHandlers.submit(Workload.BULK, "formulas can not be recomputed. ", () -> {
+            try {
+                return ok("formulas are recomputed successfully.", scaleService.recomputeFormulas(templateId));
+            } catch (IllegalArgumentException ex) {
+                return error(HttpStatus.BAD_REQUEST, "formulas can not be recomputed. " + ex.getMessage());
+            } catch (Exception ex) {
+                return error("formulas can not be recomputed. ", ex);
+            }
+        });
+    }
+
+    @GetMapping("/sheets/history")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<SheetHistoryPageDTO>>> getSheetHistory(@RequestParam Integer itemId,
+                                                                                                      @RequestParam(required = false) Integer templateId,
+                                                                                                      @RequestParam(required = false) String from,
+                                                                                                      @RequestParam(required = false) String to,
+                                                                                                      @RequestParam(required = false) String cursor,
+                                                                                                      @RequestParam(required = false) Integer limit) {
+        SheetPageRequestDTO request = new SheetPageRequestDTO();
+        request.itemId = itemId;
+        request.templateId = templateId;
+        request.from = from;
+        request.to = to;
+        request.cursor = cursor;
+        request.limit = limit;
+        return asyncHandlers.submit(Workload.BULK, "sheet history can not be fetched. ", () -> {
+            try {
+                return ok("sheet history fetched successfully.", scaleService.getSheetHistory(request));
+            } catch (IllegalArgumentException ex) {
+                return error(HttpStatus.BAD_REQUEST, "sheet history can not be fetched. " + ex.getMessage());
+            } catch (Exception ex) {
+                return error("sheet history can not be fetched. ", ex);
+            }
+        });
+    }
+
+    @GetMapping("/sheets/{inputSheetId}/outputs/page")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<SheetPageDTO>>> getInputOutputPage(@PathVariable Integer inputSheetId,
+                                                                                                  @RequestParam(required = false) Integer templateId,
+                                                                                                  @RequestParam(required = false) String from,
+                                                                                                  @RequestParam(required = false) String to,
+                                                                                                  @RequestParam(required = false) String cursor,
+                                                                                                  @RequestParam(required = false) Integer limit) {
+        SheetPageRequestDTO request = new SheetPageRequestDTO();
+        request.parentSheetId = inputSheetId;
+        request.templateId = templateId;
+        request.from = from;
+        request.to = to;
+        request.cursor = cursor;
+        request.limit = limit;
+        return asyncHandlers.submit(Workload.INTERACTIVE, "output sheets can not be fetched. ", () -> {
+            try {
+                return ok("output sheets fetched successfully.", scaleService.getSheetPage(request));
+            } catch (IllegalArgumentException ex) {
+                return error(HttpStatus.BAD_REQUEST, "output sheets can not be fetched. " + ex.getMessage());
+            } catch (Exception ex) {
+                return error("output sheets can not be fetched. ", ex);
+            }
+        });
+    }
+
+    @GetMapping("/sheets/{inputSheetId}/outputs")
+    public DeferredResult<ResponseEntity<ServiceMessageResponse<List<SheetDTO>>>> listInputOutputs(@PathVariable Integer inputSheetId) {
+        return asyncHandlers.submit(Workload.INTERACTIVE, "output sheets can not be fetched. ", () -> {
+            try {
+                return ok("output sheets fetched successfully.", scaleService.listInputOutputs(inputSheetId));
+            } catch (Exception ex) {
+                return error("output sheets can not be fetched. ", ex);
+            }
+        });
+    }
+
     @GetMapping("/templates")
-    public ResponseEntity<ServiceMessageResponse<List<TemplateDTO>>> getTemplates(@RequestParam(required = false) String kind) {
+    public ResponseEntity<?> getTemplates(@RequestParam(required = false) String kind, WebRequest webRequest) {
         try {
-            return ok("templates fetched successfully.", scaleService.getTemplates(kind));
+            JsonPayload payload = scaleService.getTemplatesPayload(kind);
+            if (webRequest.checkNotModified(payload.etag)) {
+                return null;
+            }
+            return raw(payload);
         } catch (Exception ex) {
-            return error("templates can not be fetched. " + ex.getMessage());
+            return error("templates can not be fetched. ", ex);
         }
     }
 
     @GetMapping("/templates/{templateId}/fields")
-    public ResponseEntity<ServiceMessageResponse<List<FieldDefinitionDTO>>> getTemplateFields(@PathVariable Integer templateId) {
+    public ResponseEntity<?> getTemplateFields(@PathVariable Integer templateId, WebRequest webRequest) {
         try {
-            return ok("template fields fetched successfully.", scaleService.getTemplateFields(templateId));
+            JsonPayload payload = scaleService.getTemplateFieldsPayload(templateId);
+            if (webRequest.checkNotModified(payload.etag)) {
+                return null;
+            }
+            return raw(payload);
         } catch (Exception ex) {
-            return error("template fields can not be fetched. " + ex.getMessage());
+            return error("template fields can not be fetched. ", ex);
         }
     }
 
@@ -120,7 +448,7 @@ public class ScaleWS {
         try {
             return ok("template version is created successfully.", scaleService.createTemplateVersion(request));
         } catch (Exception ex) {
-            return error("template version can not be created. " + ex.getMessage());
+            return error("template version can not be created. ", ex);
         }
     }
 
@@ -128,18 +456,17 @@ public class ScaleWS {
     public ResponseEntity<ServiceMessageResponse<TemplateDTO>> saveFieldsAsNewVersion(@RequestBody SaveFieldsVersionRequestDTO request) {
         try {
             return ok("fields are saved as new version successfully.", scaleService.saveFieldsAsNewVersion(request));
+        } catch (IllegalArgumentException ex) {
+            return error(HttpStatus.BAD_REQUEST, "fields can not be saved as new version. " + ex.getMessage());
         } catch (Exception ex) {
-            return error("fields can not be saved as new version. " + ex.getMessage());
+            return error("fields can not be saved as new version. ", ex);
         }
     }
 
     @GetMapping("/part-template-mappings")
-    public ResponseEntity<ServiceMessageResponse<List<PartTemplateMappingDTO>>> listPartTemplateMappings() {
-        try {
-            return ok("part-template mappings fetched successfully.", scaleService.listPartTemplateMappings());
-        } catch (Exception ex) {
-            return error("part-template mappings can not be fetched. " + ex.getMessage());
-        }
+    public void listPartTemplateMappings(HttpServletResponse response) throws IOException {
+        jsonStreamer.<PartTemplateMappingDTO>stream(response, "part-template mappings fetched successfully.", "part-template mappings can not be fetched. ",
+                sink -> scaleService.streamPartTemplateMappings(sink));
     }
 
     @GetMapping("/part-template-mappings/{partId}")
@@ -147,7 +474,7 @@ public class ScaleWS {
         try {
             return ok("part template rules fetched successfully.", scaleService.getTemplatesForPart(partId));
         } catch (Exception ex) {
-            return error("part template rules can not be fetched. " + ex.getMessage());
+            return error("part template rules can not be fetched. ", ex);
         }
     }
 
@@ -156,7 +483,15 @@ public class ScaleWS {
         try {
             return ok("part-template mapping is saved successfully.", scaleService.savePartTemplateMapping(dto));
         } catch (Exception ex) {
-            return error("part-template mapping can not be saved. " + ex.getMessage());
+            return error("part-template mapping can not be saved. ", ex);
+        }
+    }
+
+    // Throughput over ratio: level 1 deflate keeps up with COPY on one core.
+    private static final class FastGzipOutputStream extends GZIPOutputStream {
+        FastGzipOutputStream(OutputStream out) throws IOException {
+            super(out, EXPORT_BUFFER_BYTES);
+            def.setLevel(Deflater.BEST_SPEED);
         }
     }
 
@@ -164,8 +499,23 @@ public class ScaleWS {
         return ResponseEntity.ok(ServiceMessageResponse.success(detail, data));
     }
 
-    private <T> ResponseEntity<ServiceMessageResponse<T>> error(String detail) {
-        return ResponseEntity.internalServerError().body(ServiceMessageResponse.error(detail));
+    private ResponseEntity<byte[]> raw(JsonPayload payload) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(payload.etag)
+                .body(payload.body);
+    }
+
+    // Calls shed by the ServiceLimiter answer 429/503 with Retry-After; any other failure is a 500.
+    private <T> ResponseEntity<ServiceMessageResponse<T>> error(String detail, Exception ex) {
+        if (ex instanceof OverloadedException) {
+            OverloadedException overloaded = (OverloadedException) ex;
+            return ResponseEntity.status(overloaded.status)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(overloaded.retryAfterSeconds))
+                    .body(ServiceMessageResponse.error(detail + ex.getMessage()));
+        }
+        return ResponseEntity.internalServerError().body(ServiceMessageResponse.error(detail + ex.getMessage()));
     }
 
     private <T> ResponseEntity<ServiceMessageResponse<T>> error(HttpStatus status, String detail) {
@@ -0,0 +1,88 @@
+package com.scalebackend.limit;
+
+import com.scalebackend.dto.LimiterStatsDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceLimiterTest {
+
+    private static final int INITIAL_LIMIT = 20;
+
+    // Method names as on ScaleService: a cache-served payload and a read that goes to the database.
+    interface Service {
+        int getTemplatesPayload();
+
+        int getSheetPage();
+    }
+
+    @Test
+    void cacheHitsDoNotCollapseTheLimit() throws InterruptedException {
+        ServiceLimiter limiter = new ServiceLimiter(true, INITIAL_LIMIT, 4, 100, 2.0, 0.5, 1);
+        ProxyFactory factory = new ProxyFactory(new Service() {
+            @Override
+            public int getTemplatesPayload() {
+                return 1;
+            }
+
+            @Override
+            public int getSheetPage() {
+                sleep(2);
+                return 1;
+            }
+        });
+        factory.addAdvice(limiter);
+        Service service = (Service) factory.getProxy();
+
+        // A window of cache hits only (e.g. right after startup), then cache hits mixed with database reads.
+        run(4, 700, () -> service.getTemplatesPayload());
+        run(4, 1600, () -> {
+            service.getTemplatesPayload();
+            service.getSheetPage();
+        });
+
+        LimiterStatsDTO stats = limiter.stats();
+        assertTrue(stats.baselineRttMs >= 1.0, "baseline " + stats.baselineRttMs + " ms is below the database read latency");
+        assertTrue(stats.limit >= INITIAL_LIMIT, "limit fell to " + stats.limit);
+        assertEquals(0, stats.rejectedInteractive);
+    }
+
+    @Test
+    void classifiesLikeTheAsyncHandlers() {
+        assertEquals(Priority.BULK, ServiceLimiter.priorityOf("getSheetHistory"));
+        assertEquals(Priority.BULK, ServiceLimiter.priorityOf("createSheet"));
+        assertEquals(Priority.INTERACTIVE, ServiceLimiter.priorityOf("getSheetPage"));
+        assertEquals(Priority.INTERACTIVE, ServiceLimiter.priorityOf("getTemplatesPayload"));
+    }
+
+    private static void run(int threads, long millis, Runnable call) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        List<Thread> started = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    call.run();
+                }
+            });
+            thread.start();
+            started.add(thread);
+        }
+        for (Thread thread : started) {
+            thread.join();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
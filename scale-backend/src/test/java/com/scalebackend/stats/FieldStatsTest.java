@@ -0,0 +1,44 @@
+package com.scalebackend.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FieldStatsTest {
+
+    @Test
+    void stddevOfLargeValuesWithSmallSpread() {
+        FieldStats a = new FieldStats();
+        a.add(1e9 + 1);
+        a.add(1e9 + 2);
+        FieldStats b = new FieldStats();
+        b.add(1e9 + 3);
+        b.add(1e9 + 4);
+
+        FieldStats total = new FieldStats();
+        total.merge(a);
+        total.merge(b);
+
+        assertEquals(4, total.count);
+        assertEquals(Math.sqrt(1.25), total.stddev(), 1e-9);
+        assertEquals(0.5, a.stddev(), 1e-9);
+    }
+
+    @Test
+    void mergeMatchesAddingOneByOne() {
+        FieldStats added = new FieldStats();
+        FieldStats merged = new FieldStats();
+        for (int day = 0; day < 10; day++) {
+            FieldStats daily = new FieldStats();
+            for (int i = 0; i <= day; i++) {
+                double value = 250.0 + day * 0.1 + i * 0.01;
+                added.add(value);
+                daily.add(value);
+            }
+            merged.merge(daily);
+        }
+
+        assertEquals(added.count, merged.count);
+        assertEquals(added.stddev(), merged.stddev(), 1e-12);
+    }
+}
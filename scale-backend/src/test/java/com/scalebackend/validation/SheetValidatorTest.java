@@ -0,0 +1,97 @@
+package com.scalebackend.validation;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalebackend.dto.FieldDefinitionDTO;
+import com.scalebackend.dto.TableColumnDTO;
+import com.scalebackend.dto.TableSchemaDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Payloads in the shape the form components (DynamicForm, TableField, MultiField) send them.
+class SheetValidatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void acceptsBooleanTableCellsTypedAsText() {
+        SheetValidator validator = SheetValidator.compile(Collections.singletonList(table(column("point", "TEXT"), column("ok", "BOOLEAN"))));
+
+        assertEquals(Collections.emptyList(), validator.validate(values(
+                "{\"1\": {\"type\": \"TABLE\", \"value\": {\"rows\": [{\"point\": \"A\", \"ok\": \"true\"}, {\"point\": \"B\", \"ok\": \"false\"}, {\"point\": \"C\", \"ok\": \"\"}]}}}")));
+        assertFalse(validator.validate(values(
+                "{\"1\": {\"type\": \"TABLE\", \"value\": {\"rows\": [{\"point\": \"A\", \"ok\": \"yes\"}]}}}")).isEmpty());
+    }
+
+    @Test
+    void acceptsNumericDefaultsInTextFirstColumn() {
+        SheetValidator validator = SheetValidator.compile(Collections.singletonList(table(column("point", "TEXT"), column("load", "NUMBER"))));
+
+        assertEquals(Collections.emptyList(), validator.validate(values(
+                "{\"1\": {\"type\": \"TABLE\", \"value\": {\"rows\": [{\"point\": 10, \"load\": null}, {\"point\": 20, \"load\": 3.5}]}}}")));
+        assertFalse(validator.validate(values(
+                "{\"1\": {\"type\": \"TABLE\", \"value\": {\"rows\": [{\"point\": \"A\", \"load\": \"heavy\"}]}}}")).isEmpty());
+    }
+
+    @Test
+    void multiFieldWithoutPartsKeepsItsBaseType() {
+        FieldDefinitionDTO field = field(1, "span", "NUMBER");
+        field.isMulti = true;
+        field.multiKeys = Collections.emptyList();
+        SheetValidator validator = SheetValidator.compile(Collections.singletonList(field));
+
+        assertEquals(Collections.emptyList(), validator.validate(values("{\"1\": {\"type\": \"NUMBER\", \"value\": 12.5, \"unit\": null}}")));
+        assertEquals(Collections.emptyList(), validator.validate(values("{\"1\": {\"type\": \"MULTI\", \"value\": {}, \"unit\": \"mm\"}}")));
+        assertFalse(validator.validate(values("{\"1\": {\"type\": \"NUMBER\", \"value\": \"12.5\"}}")).isEmpty());
+    }
+
+    @Test
+    void multiFieldWithPartsExpectsMulti() {
+        FieldDefinitionDTO field = field(1, "span", "NUMBER");
+        field.isMulti = true;
+        field.multiKeys = Arrays.asList("from", "to");
+        SheetValidator validator = SheetValidator.compile(Collections.singletonList(field));
+
+        assertEquals(Collections.emptyList(), validator.validate(values("{\"1\": {\"type\": \"MULTI\", \"value\": {\"from\": 1, \"to\": null}, \"unit\": null}}")));
+        assertEquals(Collections.singletonList("span: expected type MULTI"), validator.validate(values("{\"1\": {\"type\": \"NUMBER\", \"value\": 1}}")));
+    }
+
+    private Map<String, Object> values(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>(){});
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static FieldDefinitionDTO table(TableColumnDTO... columns) {
+        FieldDefinitionDTO field = field(1, "points", "TABLE");
+        field.tableSchema = new TableSchemaDTO();
+        field.tableSchema.rowMode = "FIXED";
+        field.tableSchema.defaultRows = Arrays.asList("10", "20");
+        field.tableSchema.columns = Arrays.asList(columns);
+        return field;
+    }
+
+    private static FieldDefinitionDTO field(int id, String key, String type) {
+        FieldDefinitionDTO field = new FieldDefinitionDTO();
+        field.id = id;
+        field.key = key;
+        field.type = type;
+        return field;
+    }
+
+    private static TableColumnDTO column(String key, String type) {
+        TableColumnDTO column = new TableColumnDTO();
+        column.key = key;
+        column.label = key;
+        column.type = type;
+        return column;
+    }
+}
@@ -20,11 +20,35 @@ class ScaleService extends BaseService {
     return this.unwrapResponse(data);
   }
 
+  async getPartNodes(params = {}) {
+    const { data } = await this.http.get('/scale/items/tree/parts', { params });
+    return this.unwrapResponse(data);
+  }
+
+  async getSerialNodes(partId, params = {}) {
+    const { data } = await this.http.get('/scale/items/tree/serials', {
+      params: { partId, ...params },
+    });
+    return this.unwrapResponse(data);
+  }
+
+  async getBridgeNodes(partId, partSn, params = {}) {
+    const { data } = await this.http.get('/scale/items/tree/bridges', {
+      params: { partId, partSn, ...params },
+    });
+    return this.unwrapResponse(data);
+  }
+
   async getItemById(itemId) {
     const { data } = await this.http.get(`/scale/items/${itemId}`);
     return this.unwrapResponse(data);
   }
 
+  async getItemWorkspace(itemId, params = {}) {
+    const { data } = await this.http.get(`/scale/items/${itemId}/workspace`, { params });
+    return this.unwrapResponse(data);
+  }
+
   async listPartIds() {
     const { data } = await this.http.get('/scale/items/partIds');
     return this.unwrapResponse(data);
@@ -35,6 +59,11 @@ class ScaleService extends BaseService {
     return this.unwrapResponse(data);
   }
 
+  async createSheets(payloads) {
+    const { data } = await this.http.post('/scale/sheets/batch', payloads);
+    return this.unwrapResponse(data);
+  }
+
   async getSheet(sheetId) {
     const { data } = await this.http.get(`/scale/sheets/${sheetId}`);
     return this.unwrapResponse(data);
@@ -47,6 +76,47 @@ class ScaleService extends BaseService {
     return this.unwrapResponse(data);
   }
 
+  async getItemSheetPage(itemId, kind, params = {}) {
+    const { data } = await this.http.get('/scale/sheets/page', {
+      params: { itemId, kind, ...params },
+    });
+    return this.unwrapResponse(data);
+  }
+
+  async getInputOutputPage(inputSheetId, params = {}) {
+    const { data } = await this.http.get(`/scale/sheets/${inputSheetId}/outputs/page`, { params });
+    return this.unwrapResponse(data);
+  }
+
+  async searchSheets(request) {
+    const { data } = await this.http.post('/scale/sheets/search', request);
+    return this.unwrapResponse(data);
+  }
+
+  async getFieldStats(templateCode, fieldKey, params = {}) {
+    const { data } = await this.http.get('/scale/stats/fields', {
+      params: { templateCode, fieldKey, ...params },
+    });
+    return this.unwrapResponse(data);
+  }
+
+  async exportSheets(params = {}) {
+    const { data } = await this.http.get('/scale/sheets/export', { params, responseType: 'blob' });
+    return data;
+  }
+
+  async recomputeFormulas(templateId) {
+    const { data } = await this.http.post('/scale/formulas/recompute', null, { params: { templateId } });
+    return this.unwrapResponse(data);
+  }
+
+  async getSheetHistory(itemId, params = {}) {
+    const { data } = await this.http.get('/scale/sheets/history', {
+      params: { itemId, ...params },
+    });
+    return this.unwrapResponse(data);
+  }
+
   async listInputOutputs(inputSheetId) {
     const { data } = await this.http.get(`/scale/sheets/${inputSheetId}/outputs`);
     return this.unwrapResponse(data);